@@ -0,0 +1,67 @@
+#!/bin/sh
+# Mede o tempo até ao primeiro pedido HTTP respondido: arranque normal vs AppCDS + Spring AOT.
+#
+# Pré-requisitos: ./mvnw -Pcds package (gera o jar AOT, target/cds/ e application.jsa)
+#                 e a base de dados acessível (SPRING_DATASOURCE_URL, docker compose up postgres).
+# Uso: scripts/startup-benchmark.sh [repetições]   (por omissão 5)
+set -eu
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAR=$(ls target/*.jar | grep -v '\.original$' | head -n 1)
+CDS_JAR="target/cds/$(basename "$JAR")"
+CDS_ARCHIVE="target/cds/application.jsa"
+
+if [ ! -f "$CDS_ARCHIVE" ]; then
+    echo "Arquivo CDS não encontrado: execute ./mvnw -Pcds package" >&2
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+# Arranca a aplicação e devolve os ms até à primeira resposta HTTP (qualquer status)
+measure() {
+    start=$(now_ms)
+    java "$@" --enable-preview -jar "$APP_JAR" --server.port="$PORT" >/dev/null 2>&1 &
+    pid=$!
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT/actuator/health")" != "000" ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "A aplicação terminou antes de responder" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    end=$(now_ms)
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo $((end - start))
+}
+
+run_mode() {
+    mode=$1
+    shift
+    total=0
+    i=1
+    while [ "$i" -le "$RUNS" ]; do
+        ms=$(measure "$@")
+        echo "$mode #$i: ${ms} ms"
+        total=$((total + ms))
+        i=$((i + 1))
+    done
+    AVG=$((total / RUNS))
+    echo "$mode média: ${AVG} ms"
+}
+
+APP_JAR=$JAR
+run_mode "normal" -Xshare:auto
+NORMAL_AVG=$AVG
+
+APP_JAR=$CDS_JAR
+run_mode "cds+aot" -XX:SharedArchiveFile="$CDS_ARCHIVE" -Dspring.aot.enabled=true
+
+# Linha para colar no PR/commit: antes -> depois
+echo "arranque: ${NORMAL_AVG} ms -> ${AVG} ms ($(( (NORMAL_AVG - AVG) * 100 / NORMAL_AVG ))% mais rápido, ${RUNS} repetições)"
@@ -0,0 +1,49 @@
+package com.registo.horas_estagio.jmh;
+
+import com.registo.horas_estagio.mapper.DuracaoMapper;
+import com.registo.horas_estagio.service.impl.RegisterHorasServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de horas entre datas e formatação "H.mm" usados nos registos e nos totais.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class DuracaoBenchmark {
+
+    // Campos não finais para que o JIT não trate os valores como constantes
+    private LocalDateTime dataInicio = LocalDateTime.of(2024, 1, 15, 9, 0);
+    private LocalDateTime dataFim = LocalDateTime.of(2024, 1, 15, 17, 30);
+    private double horas = 8.5;
+    private long minutos = 510;
+
+    @Benchmark
+    public double calculateHoursBetween() {
+        return DuracaoMapper.minutosParaHoras(DuracaoMapper.minutosEntre(dataInicio, dataFim));
+    }
+
+    @Benchmark
+    public String formatHorasAsHDotMM() {
+        return RegisterHorasServiceImpl.formatHorasAsHDotMM(horas);
+    }
+
+    @Benchmark
+    public String formatMinutosAsHDotMM() {
+        return RegisterHorasServiceImpl.formatMinutosAsHDotMM(minutos);
+    }
+}
@@ -0,0 +1,81 @@
+package com.registo.horas_estagio.jmh;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.registo.horas_estagio.dto.response.PageResponse;
+import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.mapper.RequestMapper;
+import com.registo.horas_estagio.mapper.RequestMapperImpl;
+import com.registo.horas_estagio.models.RegisterHoras;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listagens: mapeamento entidade -> DTO (MapStruct) e serialização JSON da página devolvida pela API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class RegisterResponseBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private RequestMapper requestMapper;
+    private ObjectMapper objectMapper;
+    private List<RegisterHoras> registos;
+    private PageResponse<RegisterResponse> page;
+
+    @Setup
+    public void setUp() {
+        requestMapper = new RequestMapperImpl();
+        // Mesma configuração base do ObjectMapper do Spring Boot (JavaTimeModule, datas ISO-8601)
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        registos = new ArrayList<>(size);
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 15, 9, 0);
+        for (int i = 0; i < size; i++) {
+            LocalDateTime dataInicio = inicio.plusDays(i);
+            registos.add(RegisterHoras.builder()
+                    .id((long) i)
+                    .publicId(UUID.randomUUID())
+                    .estagiario("neto")
+                    .descricao("Desenvolvimento de API REST")
+                    .dataInicio(dataInicio)
+                    .dataFim(dataInicio.plusHours(8).plusMinutes(30))
+                    .minutosTrabalhados(510)
+                    .version(0L)
+                    .build());
+        }
+        List<RegisterResponse> content = requestMapper.mapToListRegisterResponse(registos);
+        page = PageResponse.of(content, 0, size, size, 1, true, true);
+    }
+
+    @Benchmark
+    public List<RegisterResponse> mapToListRegisterResponse() {
+        return requestMapper.mapToListRegisterResponse(registos);
+    }
+
+    @Benchmark
+    public byte[] serializePageResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -2,8 +2,10 @@ package com.registo.horas_estagio;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {"com.registo.horas_estagio"})
+@EnableScheduling
 public class HorasstagedApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,101 @@
+package com.registo.horas_estagio.config;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import com.registo.horas_estagio.service.JwtTokenService;
+import com.registo.horas_estagio.service.impl.UsuarioIdCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.hibernate.SessionFactory;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.vault.authentication.LifecycleAwareSessionManager;
+import org.springframework.vault.authentication.SessionManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Recursos fechados antes de um checkpoint CRaC e reabertos após o restore.
+ * <p>
+ * O Spring Boot já para e reinicia os beans Lifecycle (Tomcat, pool HikariCP suspenso e
+ * ligações fechadas, filas write-behind e de ingestão; com a réplica de leitura ativa, os pools
+ * primário e réplica são registados em ReadReplicaDataSourceConfig). Ficam aqui os ficheiros de log abertos
+ * pelo logback e a sessão do Vault, cujo token não deve sobreviver dentro da imagem.
+ * As caches de dados (segundo nível do Hibernate, username → id e tokens ativos/verificados) são
+ * esvaziadas: a imagem pode ser restaurada muito depois e não deve servir usuários ou tokens alterados
+ * ou removidos entretanto (ex.: o usuário de aquecimento e os seus tokens, removidos da base de dados
+ * por scripts/crac-checkpoint.sh).
+ * Em JVMs sem CRaC o registo é ignorado (org.crac).
+ */
+@Component
+public class CheckpointRestoreResources implements Resource {
+
+    private static final org.slf4j.Logger log = LoggerFactory.getLogger(CheckpointRestoreResources.class);
+
+    private final ObjectProvider<SessionManager> sessionManager;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final UsuarioIdCache usuarioIdCache;
+    private final JwtTokenService jwtTokenService;
+    private final List<FileAppender<ILoggingEvent>> stoppedAppenders = new ArrayList<>();
+
+    public CheckpointRestoreResources(ObjectProvider<SessionManager> sessionManager,
+                                      ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                      UsuarioIdCache usuarioIdCache,
+                                      JwtTokenService jwtTokenService) {
+        this.sessionManager = sessionManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.usuarioIdCache = usuarioIdCache;
+        this.jwtTokenService = jwtTokenService;
+        // O contexto global guarda referências fracas: este bean mantém-se vivo no contexto Spring
+        Core.getGlobalContext().register(this);
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        log.info("Checkpoint CRaC: a fechar sessão do Vault, esvaziar caches de dados e fechar ficheiros de log");
+        sessionManager.ifAvailable(manager -> {
+            if (manager instanceof LifecycleAwareSessionManager lifecycleAware) {
+                // Revoga o token de login e cancela a renovação; o próximo pedido faz novo login
+                lifecycleAware.destroy();
+            }
+        });
+        entityManagerFactory.ifAvailable(emf -> emf.unwrap(SessionFactory.class).getCache().evictAllRegions());
+        usuarioIdCache.clear();
+        jwtTokenService.clearCachedTokens();
+        stopFileAppenders();
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        startFileAppenders();
+        log.info("Restore CRaC: ficheiros de log reabertos ({})", stoppedAppenders.size());
+        stoppedAppenders.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stopFileAppenders() {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext loggerContext)) {
+            return;
+        }
+        for (Logger logger : loggerContext.getLoggerList()) {
+            for (Iterator<Appender<ILoggingEvent>> it = logger.iteratorForAppenders(); it.hasNext(); ) {
+                if (it.next() instanceof FileAppender<?> fileAppender && fileAppender.isStarted()) {
+                    fileAppender.stop();
+                    stoppedAppenders.add((FileAppender<ILoggingEvent>) fileAppender);
+                }
+            }
+        }
+    }
+
+    private void startFileAppenders() {
+        stoppedAppenders.forEach(FileAppender::start);
+    }
+}
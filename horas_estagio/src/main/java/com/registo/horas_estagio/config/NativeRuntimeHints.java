@@ -0,0 +1,110 @@
+package com.registo.horas_estagio.config;
+
+import com.registo.horas_estagio.dto.request.BulkDeleteRequest;
+import com.registo.horas_estagio.dto.request.LoginRequest;
+import com.registo.horas_estagio.dto.request.RegisterPatchRequest;
+import com.registo.horas_estagio.dto.request.RegisterRequest;
+import com.registo.horas_estagio.dto.request.UserCredentialsRequest;
+import com.registo.horas_estagio.dto.response.BulkDeleteResponse;
+import com.registo.horas_estagio.dto.response.ErrorResponse;
+import com.registo.horas_estagio.dto.response.LoginResponse;
+import com.registo.horas_estagio.dto.response.PageResponse;
+import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.models.IdempotencyKey;
+import com.registo.horas_estagio.models.JwtToken;
+import com.registo.horas_estagio.models.RegisterHoras;
+import com.registo.horas_estagio.models.Usuario;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.stream.Stream;
+
+/**
+ * Metadados de reachability para a imagem nativa (perfil Maven native).
+ * O Spring AOT já cobre beans, entidades geridas e tipos dos controllers; aqui ficam os
+ * casos que só são resolvidos por reflexão em runtime: respostas em ResponseEntity&lt;?&gt;,
+ * o JSON guardado pela idempotência, o RequestMapperImpl gerado pelo MapStruct, as
+ * implementações do jjwt carregadas por nome e os recursos estáticos/migrations.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeRuntimeHints.Registrar.class)
+public class NativeRuntimeHints {
+
+    static class Registrar implements RuntimeHintsRegistrar {
+
+        // Classes que o jjwt instancia por nome (io.jsonwebtoken.lang.Classes)
+        private static final String[] JJWT_CLASSES = {
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.DefaultClaimsBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtHeaderBuilder",
+                "io.jsonwebtoken.impl.io.StandardCompressionAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardSecureDigestAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardKeyAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardEncryptionAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardKeyOperations",
+                "io.jsonwebtoken.impl.security.StandardHashAlgorithms",
+                "io.jsonwebtoken.impl.security.StandardCurves",
+                "io.jsonwebtoken.impl.security.DefaultKeyOperationBuilder",
+                "io.jsonwebtoken.impl.security.DefaultKeyOperationPolicyBuilder",
+                "io.jsonwebtoken.impl.security.DefaultDynamicJwkBuilder",
+                "io.jsonwebtoken.impl.security.DefaultJwkParserBuilder",
+                "io.jsonwebtoken.impl.security.DefaultJwkSetBuilder",
+                "io.jsonwebtoken.impl.security.DefaultJwkSetParserBuilder",
+                "io.jsonwebtoken.impl.security.JwksBridge",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        };
+
+        private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            // Entidades JPA (Hibernate acede a campos e construtores por reflexão)
+            Stream.of(RegisterHoras.class, Usuario.class, JwtToken.class, IdempotencyKey.class)
+                    .forEach(type -> hints.reflection().registerType(type, MemberCategory.values()));
+
+            // DTOs serializados pelo Jackson fora da assinatura tipada dos controllers
+            bindingRegistrar.registerReflectionHints(hints.reflection(),
+                    RegisterRequest.class, RegisterPatchRequest.class, BulkDeleteRequest.class,
+                    LoginRequest.class, UserCredentialsRequest.class,
+                    RegisterResponse.class, PageResponse.class, BulkDeleteResponse.class,
+                    LoginResponse.class, ErrorResponse.class);
+
+            // Implementação gerada pelo MapStruct
+            hints.reflection().registerType(TypeReference.of("com.registo.horas_estagio.mapper.RequestMapperImpl"),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            for (String className : JJWT_CLASSES) {
+                hints.reflection().registerType(TypeReference.of(className),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS,
+                        MemberCategory.DECLARED_FIELDS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+            // Encoder de logs JSON referenciado no logback-spring.xml
+            hints.reflection().registerType(TypeReference.of("net.logstash.logback.encoder.LogstashEncoder"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+
+            // Proxies JDK criados pelo datasource-proxy (captura de queries lentas)
+            Stream.of(Connection.class, Statement.class, PreparedStatement.class, CallableStatement.class)
+                    .forEach(jdbcType -> hints.proxies().registerJdkProxy(ProxyJdbcObject.class, jdbcType));
+
+            // Migrations Flyway, configuração da cache Caffeine (JCache) e recursos do Swagger UI (springdoc)
+            hints.resources().registerPattern("db/migration/*.sql");
+            hints.resources().registerPattern("application.conf");
+            hints.resources().registerPattern("META-INF/resources/webjars/swagger-ui/*");
+            hints.resources().registerPattern("META-INF/maven/org.webjars/swagger-ui/pom.properties");
+        }
+    }
+}
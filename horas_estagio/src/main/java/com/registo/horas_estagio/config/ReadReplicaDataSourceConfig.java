@@ -0,0 +1,96 @@
+package com.registo.horas_estagio.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.HikariCheckpointRestoreLifecycle;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Réplica de leitura (registos.replica.enabled=true): os métodos @Transactional(readOnly = true)
+ * leem da réplica, as escritas e o Flyway usam o primário (spring.datasource.*).
+ * <p>
+ * As leituras na réplica podem não ver escritas acabadas de fazer (replicação assíncrona);
+ * fluxos que precisam de read-your-writes devem ler numa transação de escrita.
+ * <p>
+ * Com estes beans o DataSourceAutoConfiguration não se aplica, nem o HikariCheckpointRestoreLifecycle
+ * que o Boot regista para suspender o pool e fechar as ligações num checkpoint CRaC: é registado
+ * aqui para cada um dos pools.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "registos.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("registos.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${registos.replica.url}") String url,
+            @Value("${registos.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${registos.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public HikariCheckpointRestoreLifecycle primaryCheckpointRestoreLifecycle(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            ConfigurableApplicationContext applicationContext) {
+        return new HikariCheckpointRestoreLifecycle(primaryDataSource, applicationContext);
+    }
+
+    @Bean
+    public HikariCheckpointRestoreLifecycle replicaCheckpointRestoreLifecycle(
+            @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+            ConfigurableApplicationContext applicationContext) {
+        return new HikariCheckpointRestoreLifecycle(replicaDataSource, applicationContext);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${registos.replica.lag-query:SELECT EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp()))}") String lagQuery,
+            @Value("${registos.replica.max-lag:PT5S}") Duration maxLag,
+            MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(new JdbcTemplate(replicaDataSource), lagQuery, maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            ReplicaLagMonitor replicaLagMonitor) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor));
+    }
+}
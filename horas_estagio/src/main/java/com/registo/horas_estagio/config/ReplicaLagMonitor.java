@@ -0,0 +1,61 @@
+package com.registo.horas_estagio.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+
+/**
+ * Mede periodicamente o atraso de replicação da réplica de leitura.
+ * Acima de max-lag, ou se a consulta falhar, a réplica deixa de receber leituras até recuperar.
+ * Métrica: registos.datasource.replica.lag (segundos; -1 quando indisponível).
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+
+    private volatile double lagSeconds = -1;
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(JdbcTemplate replicaJdbcTemplate, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = replicaJdbcTemplate;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        Gauge.builder("registos.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Atraso de replicação da réplica de leitura em segundos")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    @Scheduled(fixedDelayString = "${registos.replica.lag-check-interval:PT5S}")
+    public void refresh() {
+        boolean usable;
+        try {
+            // NULL = nenhuma transação reproduzida ainda (ou não é standby): sem atraso conhecido
+            Double lag = replicaJdbcTemplate.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag == null ? 0 : lag;
+            usable = lagSeconds <= maxLagSeconds;
+        } catch (RuntimeException e) {
+            lagSeconds = -1;
+            usable = false;
+            log.warn("Não foi possível medir o atraso da réplica: {}", e.getMessage());
+        }
+        if (usable != replicaUsable) {
+            log.warn("Réplica de leitura {} (atraso {} s, máximo {} s)",
+                    usable ? "disponível" : "indisponível, leituras no primário", lagSeconds, maxLagSeconds);
+        }
+        replicaUsable = usable;
+    }
+}
@@ -0,0 +1,40 @@
+package com.registo.horas_estagio.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/slowqueries devolve as queries lentas mais recentes; DELETE limpa o buffer.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueriesEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    @ReadOperation
+    public SlowQueriesReport slowQueries() {
+        return new SlowQueriesReport(
+                slowQueryLog.getThreshold().toMillis(),
+                slowQueryLog.getCapacity(),
+                slowQueryLog.snapshot());
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryLog.clear();
+    }
+
+    public record SlowQueriesReport(
+            long thresholdMillis,
+            int capacity,
+            List<SlowQueryLog.SlowQuery> queries
+    ) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.registo.horas_estagio.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Envolve cada pool Hikari (primário e, se ativa, réplica) num proxy JDBC que mede
+ * cada statement e envia as queries acima do limite para o {@link SlowQueryLog}.
+ * Só os pools são envolvidos, para que cada statement seja medido uma única vez
+ * mesmo com o encaminhamento para a réplica.
+ */
+@Component
+public class SlowQueryDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SlowQueryLog> slowQueryLogProvider;
+    private final boolean enabled;
+
+    public SlowQueryDataSourcePostProcessor(
+            ObjectProvider<SlowQueryLog> slowQueryLogProvider,
+            @Value("${registos.slow-query.enabled:true}") boolean enabled) {
+        this.slowQueryLogProvider = slowQueryLogProvider;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof HikariDataSource dataSource)) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new SlowQueryListener(slowQueryLogProvider))
+                .build();
+    }
+
+    /**
+     * O SlowQueryLog só é obtido na primeira query, para não antecipar a criação do MeterRegistry.
+     */
+    private static final class SlowQueryListener implements QueryExecutionListener {
+
+        private final ObjectProvider<SlowQueryLog> slowQueryLogProvider;
+        private volatile SlowQueryLog slowQueryLog;
+
+        private SlowQueryListener(ObjectProvider<SlowQueryLog> slowQueryLogProvider) {
+            this.slowQueryLogProvider = slowQueryLogProvider;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            SlowQueryLog target = slowQueryLog;
+            if (target == null) {
+                target = slowQueryLogProvider.getIfAvailable();
+                if (target == null) {
+                    return;
+                }
+                slowQueryLog = target;
+            }
+            long elapsedMillis = execInfo.getElapsedTime();
+            if (!target.isSlow(elapsedMillis) || queryInfoList.isEmpty()) {
+                return;
+            }
+            target.record(queryInfoList.getFirst().getQuery(), elapsedMillis, Math.max(execInfo.getBatchSize(), 1));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.registo.horas_estagio.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Buffer circular com as últimas queries SQL acima do limite (registos.slow-query.threshold).
+ * Cada entrada guarda o SQL normalizado (literais substituídos por ?), a duração e o ponto da
+ * aplicação que originou a query. Exposto em /actuator/slowqueries.
+ * Métrica: registos.jdbc.slow.queries.
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final String APP_PACKAGE = "com.registo.horas_estagio.";
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Duration threshold;
+    private final int capacity;
+    private final Deque<SlowQuery> entries;
+    private final Timer slowQueryTimer;
+
+    public SlowQueryLog(
+            MeterRegistry meterRegistry,
+            @Value("${registos.slow-query.threshold:PT0.2S}") Duration threshold,
+            @Value("${registos.slow-query.capacity:100}") int capacity) {
+        // Com capacidade 0 o buffer nunca aceitaria entradas e record() falharia dentro do proxy JDBC
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "registos.slow-query.capacity deve ser pelo menos 1 (recebido " + capacity + ")");
+        }
+        this.threshold = threshold;
+        this.capacity = capacity;
+        this.entries = new ArrayDeque<>(capacity);
+        this.slowQueryTimer = Timer.builder("registos.jdbc.slow.queries")
+                .description("Queries SQL acima do limite de registos.slow-query.threshold")
+                .register(meterRegistry);
+    }
+
+    public Duration getThreshold() {
+        return threshold;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isSlow(long elapsedMillis) {
+        return elapsedMillis >= threshold.toMillis();
+    }
+
+    /**
+     * Regista uma query lenta; a entrada mais antiga é descartada quando o buffer está cheio.
+     */
+    public void record(String sql, long elapsedMillis, int batchSize) {
+        SlowQuery slowQuery = new SlowQuery(Instant.now(), normalize(sql), elapsedMillis, batchSize, callSite());
+        slowQueryTimer.record(Duration.ofMillis(elapsedMillis));
+        log.warn("Query lenta ({} ms) em {}: {}", elapsedMillis, slowQuery.callSite(), slowQuery.sql());
+        synchronized (entries) {
+            if (entries.size() == capacity) {
+                entries.removeLast();
+            }
+            entries.addFirst(slowQuery);
+        }
+    }
+
+    /**
+     * Queries lentas registadas, da mais recente para a mais antiga.
+     */
+    public List<SlowQuery> snapshot() {
+        synchronized (entries) {
+            return new ArrayList<>(entries);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = PARAMETER_LIST.matcher(normalized).replaceAll("(?...)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    /**
+     * Primeiro frame da aplicação fora da captura de queries (tipicamente o serviço que chamou o repositório).
+     */
+    private static String callSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> f.getClassName().startsWith(APP_PACKAGE))
+                .filter(f -> !f.getClassName().contains("$$"))
+                .filter(f -> !f.getClassName().startsWith(SlowQueryLog.class.getName())
+                        && !f.getClassName().startsWith(SlowQueryDataSourcePostProcessor.class.getName()))
+                .findFirst()
+                .map(f -> f.getClassName().substring(APP_PACKAGE.length()) + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("desconhecido"));
+    }
+
+    public record SlowQuery(
+            Instant timestamp,
+            String sql,
+            long durationMillis,
+            int batchSize,
+            String callSite
+    ) {
+    }
+}
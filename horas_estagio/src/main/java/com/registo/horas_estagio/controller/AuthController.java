@@ -4,21 +4,27 @@ package com.registo.horas_estagio.controller;
 import com.registo.horas_estagio.dto.request.LoginRequest;
 import com.registo.horas_estagio.dto.request.UserCredentialsRequest;
 
+import com.registo.horas_estagio.dto.response.ErrorResponse;
 import com.registo.horas_estagio.dto.response.LoginResponse;
 import com.registo.horas_estagio.mapper.RequestMapper;
 import com.registo.horas_estagio.models.JwtToken;
 import com.registo.horas_estagio.models.Usuario;
 import com.registo.horas_estagio.security.JwtTokenUtil;
+import com.registo.horas_estagio.security.LoginRateLimiter;
 import com.registo.horas_estagio.service.JwtTokenService;
 import com.registo.horas_estagio.service.UsuarioService;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -37,12 +43,15 @@ import java.util.Optional;
 public class AuthController {
 
     private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+    private static final String LOGIN_TOKENS_METRIC = "auth.login.tokens";
 
     private final AuthenticationManager authenticationManager;
     private final JwtTokenUtil jwtTokenUtil;
     private final UsuarioService usuarioService;
     private final RequestMapper requestMapper;
     private final JwtTokenService jwtTokenService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final MeterRegistry meterRegistry;
 
     @Operation(
             summary = "Realizar login na aplicaçao",
@@ -55,23 +64,33 @@ public class AuthController {
                     content = @Content(schema = @Schema(implementation = LoginResponse.class))
             ),
             @ApiResponse(responseCode = "401", description = "Credenciais inválidas"),
-            @ApiResponse(responseCode = "400", description = "Requisição inválida")
+            @ApiResponse(responseCode = "400", description = "Requisição inválida"),
+            @ApiResponse(responseCode = "429", description = "Demasiadas tentativas de login")
     })
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
 
         log.info("Tentativa de login: {}", loginRequest.username());
+        // Rejeita antes de qualquer verificação BCrypt
+        if (!loginRateLimiter.tryAcquire(loginRequest.username(), request.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "60")
+                    .body(new ErrorResponse("Demasiadas tentativas de login, tente novamente mais tarde",
+                            HttpStatus.TOO_MANY_REQUESTS.value()));
+        }
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.username(), loginRequest.password())
         );
 
         String username = authentication.getName();
+        loginRateLimiter.onSuccess(loginRequest.username());
        // Tenta obter um token reutilizável (não revogado e não expirado)
                Optional<JwtToken> latestTokenOpt = jwtTokenService.getReusableTokenForUser(username);
                if (latestTokenOpt.isPresent()) {
                    JwtToken latestToken = latestTokenOpt.get();
                    log.info("Reutilizando token existente para usuário {}", username);
+                   meterRegistry.counter(LOGIN_TOKENS_METRIC, "result", "reused").increment();
                    return ResponseEntity.ok().body(new LoginResponse("Login realizado com sucesso", latestToken.getToken()));
                 }
 
@@ -80,6 +99,7 @@ public class AuthController {
         Instant issuedAt = Instant.now();
         Instant expiresAt = issuedAt.plusMillis(jwtTokenUtil.getExpirationMillis());
         jwtTokenService.saveToken(token, username, issuedAt, expiresAt);
+        meterRegistry.counter(LOGIN_TOKENS_METRIC, "result", "issued").increment();
 
         log.info("Login realizado com sucesso para: {} com o token {}", username, token);
         return ResponseEntity.ok().body(new LoginResponse("Login realizado com sucesso", token));
@@ -1,9 +1,15 @@
 package com.registo.horas_estagio.controller;
 
 
+import com.registo.horas_estagio.dto.request.BulkDeleteRequest;
+import com.registo.horas_estagio.dto.request.RegisterPatchRequest;
 import com.registo.horas_estagio.dto.request.RegisterRequest;
+import com.registo.horas_estagio.dto.response.BulkDeleteResponse;
 import com.registo.horas_estagio.dto.response.PageResponse;
 import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.dto.response.RegisterStatusResponse;
+import com.registo.horas_estagio.exception.RegisterVersionConflictException;
+import com.registo.horas_estagio.service.IdempotencyKeyService;
 import com.registo.horas_estagio.service.RegisterHorasService;
 import com.registo.horas_estagio.service.impl.RegisterHorasServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,14 +20,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +45,7 @@ import java.util.stream.Collectors;
 public class RegistroHorasController {
 
     private final RegisterHorasService registerHorasService;
+    private final IdempotencyKeyService idempotencyKeyService;
 
     @Operation(
             summary = "Listar todos os registos",
@@ -135,16 +147,90 @@ public class RegistroHorasController {
                     description = "Registro criado com sucesso",
                     content = @Content(schema = @Schema(implementation = RegisterResponse.class))
             ),
-            @ApiResponse(responseCode = "400", description = "Dados inválidos"),
-            @ApiResponse(responseCode = "403", description = "Acesso negado")
+            @ApiResponse(responseCode = "400", description = "Dados inválidos ou Idempotency-Key com mais de 255 caracteres"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado"),
+            @ApiResponse(responseCode = "409", description = "Pedido original com a mesma Idempotency-Key ainda em processamento"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key reutilizada com outro pedido")
     })
     @PostMapping("/add")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('ESTAGIARIO') and #registerRequest.estagiario() == authentication.name)")
-    public ResponseEntity<RegisterResponse> addRegisterHoras(@RequestBody @Valid RegisterRequest registerRequest) {
-        RegisterResponse registerResponse = registerHorasService.submitHours(registerRequest);
+    public ResponseEntity<RegisterResponse> addRegisterHoras(
+            @RequestBody @Valid RegisterRequest registerRequest,
+
+            @Parameter(description = "Chave única do pedido; retries com a mesma chave devolvem o registo original")
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        RegisterResponse registerResponse = (idempotencyKey == null || idempotencyKey.isBlank())
+                ? registerHorasService.submitHours(registerRequest)
+                : idempotencyKeyService.submitOnce(idempotencyKey.trim(), registerRequest,
+                        () -> registerHorasService.submitHours(registerRequest));
         return new ResponseEntity<>(registerResponse, HttpStatus.CREATED);
     }
 
+    @Operation(
+            summary = "Criar novo registo (assíncrono)",
+            description = "Valida o pedido e coloca-o na fila de ingestão; o registo é gravado em batch pouco depois. O estado (incluindo o motivo de uma falha) fica em /api/registos/{publicId}/estado"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Registro aceite para gravação",
+                    content = @Content(schema = @Schema(implementation = RegisterResponse.class))
+            ),
+            @ApiResponse(responseCode = "201", description = "Ingestão assíncrona desativada: registro criado"),
+            @ApiResponse(responseCode = "400", description = "Dados inválidos"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado"),
+            @ApiResponse(responseCode = "503", description = "Fila de ingestão cheia")
+    })
+    @PostMapping("/add/async")
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('ESTAGIARIO') and #registerRequest.estagiario() == authentication.name)")
+    public ResponseEntity<RegisterResponse> addRegisterHorasAsync(@RequestBody @Valid RegisterRequest registerRequest) {
+        if (!registerHorasService.isAsyncIngestionEnabled()) {
+            return new ResponseEntity<>(registerHorasService.submitHours(registerRequest), HttpStatus.CREATED);
+        }
+        RegisterResponse registerResponse = registerHorasService.submitHoursAsync(registerRequest);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/registos/" + registerResponse.publicId()))
+                .body(registerResponse);
+    }
+
+    @Operation(
+            summary = "Consultar registo",
+            description = "Retorna um registro pelo ID público, incluindo registos aceites ainda não gravados"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Registro encontrado"),
+            @ApiResponse(responseCode = "400", description = "Registro não encontrado"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado"),
+            @ApiResponse(responseCode = "410", description = "Registo aceite com 202 mas não gravado (ver /estado)")
+    })
+    @GetMapping("/{publicId}")
+    @PostAuthorize("hasRole('ADMIN') or (hasRole('ESTAGIARIO') and returnObject.body.estagiario() == authentication.name)")
+    public ResponseEntity<RegisterResponse> getRegister(@PathVariable UUID publicId) {
+        RegisterResponse response = registerHorasService.findRegisteredHours(publicId);
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(response.version()))
+                .body(response);
+    }
+
+    @Operation(
+            summary = "Estado de registo assíncrono",
+            description = "Indica se um registo aceite com 202 está pendente, gravado ou falhado, com o motivo da falha"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Estado do registo",
+                    content = @Content(schema = @Schema(implementation = RegisterStatusResponse.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Registro não encontrado"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado")
+    })
+    @GetMapping("/{publicId}/estado")
+    @PostAuthorize("hasRole('ADMIN') or (hasRole('ESTAGIARIO') and returnObject.body.estagiario() == authentication.name)")
+    public ResponseEntity<RegisterStatusResponse> getRegisterStatus(@PathVariable UUID publicId) {
+        return ResponseEntity.ok(registerHorasService.findRegisterStatus(publicId));
+    }
+
     @Operation(
             summary = "Atualizar registo",
             description = "Atualiza um registro existente (ADMIN pode editar qualquer, ESTAGIARIO apenas os seus)"
@@ -152,17 +238,59 @@ public class RegistroHorasController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Registro atualizado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Registro não encontrado"),
-            @ApiResponse(responseCode = "403", description = "Acesso negado")
+            @ApiResponse(responseCode = "403", description = "Acesso negado"),
+            @ApiResponse(responseCode = "409", description = "Registro alterado por outro utilizador (devolve o estado atual)")
     })
     @PutMapping("update/{uuid}")
     @PreAuthorize("hasRole('ADMIN') or (hasRole('ESTAGIARIO') and #registerRequest.estagiario() == authentication.name)")
     public ResponseEntity<RegisterResponse> updateRegister(
             @PathVariable UUID uuid,
-            @RequestBody @Valid RegisterRequest registerRequest) {
+            @RequestBody @Valid RegisterRequest registerRequest,
+
+            @Parameter(description = "Versão (ETag) lida pelo cliente; se não for a atual responde 409")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         // ADMIN pode editar qualquer registro
         // ESTAGIARIO só pode editar seus próprios registros
-        RegisterResponse response = registerHorasService.updateRegister(uuid, registerRequest);
-        return ResponseEntity.ok(response);
+        RegisterResponse response;
+        try {
+            response = registerHorasService.updateRegister(uuid, registerRequest, parseVersion(ifMatch));
+        } catch (OptimisticLockingFailureException e) {
+            // Outra edição foi gravada entre a leitura e o commit
+            throw new RegisterVersionConflictException(
+                    "Registro " + uuid + " foi alterado por outro utilizador",
+                    registerHorasService.findRegisteredHours(uuid));
+        }
+        return ResponseEntity.ok()
+                .eTag(String.valueOf(response.version()))
+                .body(response);
+    }
+
+    @Operation(
+            summary = "Atualizar registo parcialmente",
+            description = "Altera apenas os campos enviados num único UPDATE (ADMIN qualquer registo, ESTAGIARIO apenas os seus)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Registro atualizado com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Dados inválidos ou registro não encontrado"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado"),
+            @ApiResponse(responseCode = "409", description = "Registro alterado por outro utilizador (devolve o estado atual)")
+    })
+    @PatchMapping("/{uuid}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('ESTAGIARIO')")
+    public ResponseEntity<Void> patchRegister(
+            @PathVariable UUID uuid,
+            @RequestBody @Valid RegisterPatchRequest patchRequest,
+
+            @Parameter(description = "Versão (ETag) lida pelo cliente; se não for a atual responde 409")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+
+            Authentication authentication) {
+        // ESTAGIARIO só pode alterar os seus registos: a condição vai no próprio UPDATE
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        String owner = isAdmin ? null : authentication.getName();
+        registerHorasService.patchRegister(uuid, patchRequest, owner, parseVersion(ifMatch));
+        return ResponseEntity.noContent().build();
     }
 
     @Operation(
@@ -181,6 +309,21 @@ public class RegistroHorasController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(
+            summary = "Apagar registos em massa",
+            description = "Remove registos por lista de IDs públicos ou por estagiário e período, em batches (apenas ADMIN)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Número de registos removidos"),
+            @ApiResponse(responseCode = "400", description = "Critério inválido"),
+            @ApiResponse(responseCode = "403", description = "Acesso negado - apenas ADMIN")
+    })
+    @PostMapping("/bulk-delete")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkDeleteResponse> bulkDelete(@RequestBody @Valid BulkDeleteRequest bulkDeleteRequest) {
+        return ResponseEntity.ok(registerHorasService.bulkDelete(bulkDeleteRequest));
+    }
+
     /**
      * Retorna as horas por semana para o ano informado.
      * Parâmetros:
@@ -257,4 +400,22 @@ public class RegistroHorasController {
         return ResponseEntity.ok(body);
     }
 
+    /**
+     * Converte o header If-Match ("3", W/"3" ou *) na versão esperada.
+     */
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match inválido: " + ifMatch);
+        }
+    }
 }
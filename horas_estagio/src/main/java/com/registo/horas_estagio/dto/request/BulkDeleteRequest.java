@@ -0,0 +1,39 @@
+package com.registo.horas_estagio.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Schema(description = "Remoção em massa: por lista de IDs públicos ou por estagiário e período [dataInicio, dataFim), nunca ambos")
+public record BulkDeleteRequest(
+
+        @Schema(description = "IDs públicos dos registos a remover")
+        @Size(max = 10000, message = "No máximo 10000 registos por pedido")
+        List<UUID> publicIds,
+
+        @Schema(description = "Estagiário cujos registos no período serão removidos", example = "neto")
+        String estagiario,
+
+        @Schema(description = "Início do período (inclusive)", example = "2024-01-01T00:00:00", type = "string", format = "date-time")
+        LocalDateTime dataInicio,
+
+        @Schema(description = "Fim do período (exclusive)", example = "2024-02-01T00:00:00", type = "string", format = "date-time")
+        LocalDateTime dataFim
+
+) {
+    public boolean hasPublicIds() {
+        return publicIds != null && !publicIds.isEmpty();
+    }
+
+    // Algum dos critérios por período foi indicado (mesmo que incompleto)
+    public boolean hasAnyPeriodCriteria() {
+        return (estagiario != null && !estagiario.isBlank()) || dataInicio != null || dataFim != null;
+    }
+
+    public boolean hasPeriod() {
+        return estagiario != null && !estagiario.isBlank() && dataInicio != null && dataFim != null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.registo.horas_estagio.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Atualização parcial de um registo; campos omitidos mantêm o valor atual")
+// Clientes antigos que ainda enviam horasTrabalhadas (calculadas pela base de dados) não falham
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record RegisterPatchRequest(
+
+        @Schema(description = "Descrição da atividade", example = "Revisão de código")
+        @Size(min = 2, max = 50, message = "Descrição deve ter entre 2 e 50 caracteres")
+        String descricao,
+
+        @Schema(description = "Data e hora de início", example = "2024-01-15T09:00:00", type = "string", format = "date-time")
+        LocalDateTime dataInicio,
+
+        @Schema(description = "Data e hora de término", example = "2024-01-15T18:00:00", type = "string", format = "date-time")
+        LocalDateTime dataFim
+
+) {
+    public boolean isEmpty() {
+        return descricao == null && dataInicio == null && dataFim == null;
+    }
+}
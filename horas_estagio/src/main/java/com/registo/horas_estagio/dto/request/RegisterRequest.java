@@ -47,10 +47,11 @@ public record RegisterRequest(
         LocalDateTime dataFim,
 
         @Schema(
-                description = "Data e hora trabalhadas",
+                description = "IGNORADO: o valor enviado é descartado; as horas trabalhadas são sempre calculadas a partir de dataInicio e dataFim",
                 example = "2.4",
-                requiredMode = Schema.RequiredMode.REQUIRED,
-                type = "double"
+                type = "double",
+                requiredMode = Schema.RequiredMode.NOT_REQUIRED,
+                deprecated = true
         )
         double horasTrabalhadas
 
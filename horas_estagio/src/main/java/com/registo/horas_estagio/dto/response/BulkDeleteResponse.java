@@ -0,0 +1,6 @@
+package com.registo.horas_estagio.dto.response;
+
+public record BulkDeleteResponse(
+        long deleted
+) {
+}
@@ -10,6 +10,8 @@ public record RegisterResponse(
         String descricao,
         LocalDateTime dataInicio,
         LocalDateTime dataFim,
-        double horasTrabalhadas
+        double horasTrabalhadas,
+        // Versão para controlo de concorrência otimista (If-Match / ETag)
+        Long version
 ) {
 }
@@ -0,0 +1,22 @@
+package com.registo.horas_estagio.dto.response;
+
+import java.util.UUID;
+
+/**
+ * Estado de um registo submetido em POST /api/registos/add/async.
+ *
+ * @param motivo preenchido apenas quando o estado é FALHADO
+ */
+public record RegisterStatusResponse(
+        UUID publicId,
+        String estagiario,
+        Estado estado,
+        String motivo
+) {
+
+    public enum Estado {
+        PENDENTE,
+        GRAVADO,
+        FALHADO
+    }
+}
@@ -1,8 +1,11 @@
 package com.registo.horas_estagio.exception;
 
 import com.registo.horas_estagio.dto.response.ErrorResponse;
+import com.registo.horas_estagio.dto.response.RegisterResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -13,6 +16,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.client.ResourceAccessException;
 
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,6 +24,7 @@ import java.util.Map;
 public class GlobalExceptionHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GlobalExceptionHandler.class);
+    private static final String EXCLUSION_VIOLATION = "23P01";
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ErrorResponse> handleRuntimeException(RuntimeException e) {
@@ -83,6 +88,112 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
     }
 
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<ErrorResponse> handlePasswordHashingBusyException(PasswordHashingBusyException e) {
+        log.warn("Hashing de password indisponível: {}", e.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE.value()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @ExceptionHandler(RegisterVersionConflictException.class)
+    public ResponseEntity<RegisterResponse> handleRegisterVersionConflictException(RegisterVersionConflictException e) {
+        log.warn("Conflito de versão: {}", e.getMessage());
+        RegisterResponse current = e.getCurrent();
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .eTag(String.valueOf(current.version()))
+                .body(current);
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        // 23P01 = exclusion_violation (constraint register_horas_sem_sobreposicao)
+        if (EXCLUSION_VIOLATION.equals(sqlState(e))) {
+            log.warn("Registo sobreposto rejeitado: {}", e.getMostSpecificCause().getMessage());
+            ErrorResponse error = new ErrorResponse(
+                    "O período indicado sobrepõe-se a outro registo do mesmo estagiário",
+                    HttpStatus.CONFLICT.value()
+            );
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        }
+        log.error("Violação de integridade: {}", e.getMostSpecificCause().getMessage(), e);
+        ErrorResponse error = new ErrorResponse(
+                e.getMostSpecificCause().getMessage(),
+                HttpStatus.BAD_REQUEST.value()
+        );
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(TokenPersistenceException.class)
+    public ResponseEntity<ErrorResponse> handleTokenPersistenceException(TokenPersistenceException e) {
+        log.error("Token não gravado: {}", e.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE.value()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<ErrorResponse> handleIngestionQueueFullException(IngestionQueueFullException e) {
+        log.warn("Ingestão de registos indisponível: {}", e.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE.value()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @ExceptionHandler(RegisterIngestionFailedException.class)
+    public ResponseEntity<ErrorResponse> handleRegisterIngestionFailedException(RegisterIngestionFailedException e) {
+        log.warn("Registo assíncrono não gravado: {}", e.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.GONE.value()
+        );
+        return ResponseEntity.status(HttpStatus.GONE).body(error);
+    }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReuseException(IdempotencyKeyReuseException e) {
+        log.warn("Idempotency-Key reutilizada: {}", e.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.UNPROCESSABLE_ENTITY.value()
+        );
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(error);
+    }
+
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyInProgressException(IdempotencyKeyInProgressException e) {
+        log.warn("Idempotency-Key em processamento: {}", e.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.CONFLICT.value()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException e) {
+        log.warn("Idempotency-Key inválida: {}", e.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.BAD_REQUEST.value()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     @ExceptionHandler(ResourceAccessException.class)
     public ResponseEntity<ErrorResponse> ResourceAccessException(Exception e) {
         log.warn(" Unsupported or unrecognized SSL message: {}", e.getMessage());
@@ -102,5 +213,12 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
     }
 
-
-}
\ No newline at end of file
+    private static String sqlState(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                return sqlException.getSQLState();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.registo.horas_estagio.exception;
+
+/**
+ * Lançada quando o pedido original com a mesma Idempotency-Key ainda não terminou dentro do tempo de espera.
+ */
+public class IdempotencyKeyInProgressException extends RuntimeException {
+
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.registo.horas_estagio.exception;
+
+/**
+ * Lançada quando uma Idempotency-Key já usada é reenviada com um pedido diferente.
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    public IdempotencyKeyReuseException(String message) {
+        super(message);
+    }
+}
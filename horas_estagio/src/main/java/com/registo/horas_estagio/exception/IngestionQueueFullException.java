@@ -0,0 +1,11 @@
+package com.registo.horas_estagio.exception;
+
+/**
+ * Lançada quando a fila de ingestão assíncrona de registos não tem capacidade para o pedido.
+ */
+public class IngestionQueueFullException extends RuntimeException {
+
+    public IngestionQueueFullException(String message) {
+        super(message);
+    }
+}
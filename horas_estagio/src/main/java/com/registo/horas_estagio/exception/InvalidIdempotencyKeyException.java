@@ -0,0 +1,11 @@
+package com.registo.horas_estagio.exception;
+
+/**
+ * Lançada quando o header Idempotency-Key não cumpre o formato aceite (ex.: demasiado longo).
+ */
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.registo.horas_estagio.exception;
+
+/**
+ * Lançada quando o executor de hashing de passwords não tem capacidade para o pedido.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.registo.horas_estagio.exception;
+
+/**
+ * Lançada ao consultar um registo aceite pela ingestão assíncrona que acabou por não ser gravado.
+ * O motivo fica disponível em GET /api/registos/{publicId}/estado (restrito ao dono e a ADMIN).
+ */
+public class RegisterIngestionFailedException extends RuntimeException {
+
+    public RegisterIngestionFailedException(String message) {
+        super(message);
+    }
+}
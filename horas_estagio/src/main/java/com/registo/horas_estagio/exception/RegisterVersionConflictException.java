@@ -0,0 +1,21 @@
+package com.registo.horas_estagio.exception;
+
+import com.registo.horas_estagio.dto.response.RegisterResponse;
+
+/**
+ * Lançada quando um registo foi alterado por outro utilizador desde a versão que o cliente leu.
+ * Transporta o estado atual para ser devolvido com 409.
+ */
+public class RegisterVersionConflictException extends RuntimeException {
+
+    private final transient RegisterResponse current;
+
+    public RegisterVersionConflictException(String message, RegisterResponse current) {
+        super(message);
+        this.current = current;
+    }
+
+    public RegisterResponse getCurrent() {
+        return current;
+    }
+}
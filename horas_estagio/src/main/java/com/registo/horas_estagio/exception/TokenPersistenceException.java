@@ -0,0 +1,11 @@
+package com.registo.horas_estagio.exception;
+
+/**
+ * Lançada quando um token emitido não pode ser gravado (e por isso não poderia ser revogado no logout).
+ */
+public class TokenPersistenceException extends RuntimeException {
+
+    public TokenPersistenceException(String message) {
+        super(message);
+    }
+}
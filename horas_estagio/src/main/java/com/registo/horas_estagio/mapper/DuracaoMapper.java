@@ -0,0 +1,28 @@
+package com.registo.horas_estagio.mapper;
+
+import org.mapstruct.Named;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Conversão dos minutos inteiros (armazenamento) para horas decimais (API).
+ * Os minutos são exatos: somas de milhares de registos não acumulam erro de arredondamento.
+ */
+public final class DuracaoMapper {
+
+    private DuracaoMapper() {
+    }
+
+    @Named("minutosParaHoras")
+    public static double minutosParaHoras(long minutos) {
+        return minutos / 60.0;
+    }
+
+    /**
+     * Minutos inteiros entre duas datas, truncados (igual à coluna gerada minutos_trabalhados).
+     */
+    public static long minutosEntre(LocalDateTime dataInicio, LocalDateTime dataFim) {
+        return Duration.between(dataInicio, dataFim).toMinutes();
+    }
+}
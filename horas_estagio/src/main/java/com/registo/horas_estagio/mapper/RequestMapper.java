@@ -10,7 +10,7 @@ import org.mapstruct.Mapping;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = DuracaoMapper.class)
 public interface RequestMapper {
 
     @Mapping(target = "username", source = "username")
@@ -24,8 +24,10 @@ public interface RequestMapper {
     @Mapping(target = "descricao", source = "descricao")
     @Mapping(target = "dataInicio", source = "dataInicio")
     @Mapping(target = "dataFim", source = "dataFim")
-    @Mapping(target = "horasTrabalhadas", source = "horasTrabalhadas")
+    @Mapping(target = "minutosTrabalhados", ignore = true) // coluna gerada pela base de dados
     RegisterHoras mapToRegisterHoras(RegisterRequest registerRequest);
+
+    @Mapping(target = "horasTrabalhadas", source = "minutosTrabalhados", qualifiedByName = "minutosParaHoras")
     RegisterResponse mapRegisterResponse(RegisterHoras registerHoras);
 
 
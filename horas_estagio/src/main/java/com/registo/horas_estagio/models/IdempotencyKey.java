@@ -0,0 +1,46 @@
+package com.registo.horas_estagio.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Chave de idempotência enviada pelo cliente no header Idempotency-Key.
+ * Guarda a resposta original para que um retry devolva o mesmo registo sem voltar a inserir.
+ */
+@Getter
+@Setter
+@Builder
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "idempotency_key", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_idempotency_key_estagiario_key", columnNames = {"estagiario", "idempotency_key"})
+})
+public class IdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String estagiario;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    // SHA-256 do pedido original, para detetar a reutilização da chave com outro conteúdo
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // RegisterResponse original serializado em JSON
+    @Column(name = "response_body", nullable = false, columnDefinition = "text")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -4,6 +4,7 @@ package com.registo.horas_estagio.models;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.GeneratedColumn;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -38,8 +39,16 @@ public class RegisterHoras {
     @Column(nullable = false)
     private LocalDateTime dataFim;
 
+    // Coluna gerada (data_fim - data_inicio em minutos), relida após INSERT/UPDATE.
+    // Em PostgreSQL vem da migration V7; a expressão só é usada no DDL gerado (H2 nos testes)
+    @GeneratedColumn("CAST(FLOOR(EXTRACT(EPOCH FROM (data_fim - data_inicio)) / 60) AS INTEGER)")
+    @Column(name = "minutos_trabalhados")
+    private int minutosTrabalhados;
+
+    // Controlo de concorrência otimista: UPDATE ... WHERE version = ?
+    @Version
     @Column(nullable = false)
-    private double horasTrabalhadas;
+    private Long version;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false)
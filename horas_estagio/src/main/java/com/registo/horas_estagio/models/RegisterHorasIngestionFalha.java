@@ -0,0 +1,71 @@
+package com.registo.horas_estagio.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Registo aceite pela ingestão assíncrona (202) que não foi gravado em register_horas.
+ * Gravado pelo writer da fila via JDBC; aqui apenas para consulta do estado pelo publicId.
+ */
+@Getter
+@Setter
+@Builder
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "register_horas_ingestion_falha")
+public class RegisterHorasIngestionFalha {
+
+    @Id
+    @Column(name = "public_id", nullable = false, updatable = false)
+    private UUID publicId;
+
+    @Column(nullable = false)
+    private String estagiario;
+
+    @Column(nullable = false)
+    private String descricao;
+
+    @Column(name = "data_inicio", nullable = false)
+    private LocalDateTime dataInicio;
+
+    @Column(name = "data_fim", nullable = false)
+    private LocalDateTime dataFim;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Motivo motivo;
+
+    // Mensagem da base de dados, apenas para diagnóstico (não é devolvida ao cliente)
+    @Column(columnDefinition = "text")
+    private String detalhe;
+
+    @Column(name = "failed_at", nullable = false)
+    private Instant failedAt;
+
+    public enum Motivo {
+        // Período sobreposto a outro registo do mesmo usuário (register_horas_sem_sobreposicao)
+        SOBREPOSICAO("O período indicado sobrepõe-se a outro registo do mesmo estagiário"),
+        // Outra restrição da base de dados (ex.: usuário removido entretanto)
+        RESTRICAO("O registo foi rejeitado pela base de dados"),
+        // Erro de gravação persistente após as tentativas do writer
+        FALHA_GRAVACAO("Não foi possível gravar o registo, submeta-o novamente");
+
+        private final String descricao;
+
+        Motivo(String descricao) {
+            this.descricao = descricao;
+        }
+
+        public String getDescricao() {
+            return descricao;
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.registo.horas_estagio.repository;
 import com.registo.horas_estagio.models.JwtToken;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface JwtTokenRepository extends JpaRepository<JwtToken, Long> {
     Optional<JwtToken> findTopByUsuario_UsernameAndRevokedFalseOrderByExpiresAtDesc(String username);
     Optional<JwtToken> findByToken(String token);
+
+    // Tokens revogados ainda não expirados (carregamento do índice de revogação)
+    List<JwtToken> findByRevokedTrueAndExpiresAtAfter(Instant now);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.registo.horas_estagio.repository;
+
+import com.registo.horas_estagio.models.RegisterHorasIngestionFalha;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.UUID;
+
+// Chave primária = publicId devolvido no 202
+public interface RegisterHorasIngestionFalhaRepository extends JpaRepository<RegisterHorasIngestionFalha, UUID> {
+}
@@ -1,13 +1,18 @@
 package com.registo.horas_estagio.repository;
 
 import com.registo.horas_estagio.models.RegisterHoras;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -28,4 +33,70 @@ public interface RegistroHorasRepository extends JpaRepository<RegisterHoras, Lo
 
     // Busca registros de um utilizador entre duas datas
     List<RegisterHoras> findByEstagiarioAndDataInicioBetween(String estagiario, LocalDateTime start, LocalDateTime end);
+
+    // Agregações em SQL sobre minutos inteiros (SUM em bigint, sem carregar as entidades)
+    @Query("SELECT COALESCE(SUM(r.minutosTrabalhados), 0L) FROM RegisterHoras r WHERE r.estagiario = :estagiario")
+    long sumMinutosByEstagiario(@Param("estagiario") String estagiario);
+
+    @Query("SELECT COALESCE(SUM(r.minutosTrabalhados), 0L) FROM RegisterHoras r " +
+            "WHERE r.dataInicio BETWEEN :start AND :end")
+    long sumMinutosByDataInicioBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT COALESCE(SUM(r.minutosTrabalhados), 0L) FROM RegisterHoras r " +
+            "WHERE r.estagiario = :estagiario AND r.dataInicio BETWEEN :start AND :end")
+    long sumMinutosByEstagiarioAndDataInicioBetween(@Param("estagiario") String estagiario,
+                                                    @Param("start") LocalDateTime start,
+                                                    @Param("end") LocalDateTime end);
+
+    // DELETE direto, sem carregar a entidade; devolve o nº de linhas removidas
+    @Modifying
+    @Query("DELETE FROM RegisterHoras r WHERE r.publicId = :publicId")
+    int deleteByPublicId(@Param("publicId") UUID publicId);
+
+    @Modifying
+    @Query("DELETE FROM RegisterHoras r WHERE r.publicId IN :publicIds")
+    int deleteByPublicIdIn(@Param("publicIds") Collection<UUID> publicIds);
+
+    @Modifying
+    @Query("DELETE FROM RegisterHoras r WHERE r.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Próximo batch de ids a remover no período [inicio, fim)
+    @Query("SELECT r.id FROM RegisterHoras r WHERE r.estagiario = :estagiario " +
+            "AND r.dataInicio >= :inicio AND r.dataInicio < :fim ORDER BY r.id")
+    List<Long> findIdsByEstagiarioAndPeriod(@Param("estagiario") String estagiario,
+                                            @Param("inicio") LocalDateTime inicio,
+                                            @Param("fim") LocalDateTime fim,
+                                            Pageable pageable);
+
+    /**
+     * Atualização parcial num único UPDATE, sem carregar a entidade.
+     * Parâmetros null mantêm o valor atual; minutos_trabalhados é uma coluna gerada
+     * e acompanha as datas automaticamente. Só atualiza se o estagiário e a versão coincidirem (quando indicados)
+     * e se as datas resultantes forem coerentes.
+     *
+     * Query space declarado: sem ele o Hibernate trata o UPDATE nativo como podendo tocar em qualquer
+     * tabela e invalida toda a cache de segundo nível e a query cache (ex.: Usuario e findByUsername).
+     *
+     * @return número de linhas atualizadas (0 ou 1)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "register_horas"))
+    @Query(value = """
+            UPDATE register_horas SET
+                descricao = COALESCE(CAST(:descricao AS varchar), descricao),
+                data_inicio = COALESCE(CAST(:dataInicio AS timestamp), data_inicio),
+                data_fim = COALESCE(CAST(:dataFim AS timestamp), data_fim),
+                version = version + 1
+            WHERE public_id = :publicId
+              AND (CAST(:estagiario AS varchar) IS NULL OR estagiario = CAST(:estagiario AS varchar))
+              AND (CAST(:version AS bigint) IS NULL OR version = CAST(:version AS bigint))
+              AND COALESCE(CAST(:dataFim AS timestamp), data_fim) >= COALESCE(CAST(:dataInicio AS timestamp), data_inicio)
+            """, nativeQuery = true)
+    int patchByPublicId(@Param("publicId") UUID publicId,
+                        @Param("descricao") String descricao,
+                        @Param("dataInicio") LocalDateTime dataInicio,
+                        @Param("dataFim") LocalDateTime dataFim,
+                        @Param("estagiario") String estagiario,
+                        @Param("version") Long version);
 }
@@ -1,15 +1,31 @@
 package com.registo.horas_estagio.repository;
 
 import com.registo.horas_estagio.models.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
+
+    /**
+     * Consulta mais frequente (login, filtro JWT, registos): resultado na query cache
+     * e entidade na cache de segundo nível; qualquer escrita em usuario invalida a query cache.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Usuario> findByUsername(String username);
 
+    /**
+     * Busca apenas o id do usuário, sem carregar a entidade.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT u.id FROM Usuario u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
     /**
      * Busca usuário por username ignorando case.
      * Útil para validações antes de salvar.
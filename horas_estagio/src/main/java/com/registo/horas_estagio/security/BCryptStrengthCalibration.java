@@ -0,0 +1,27 @@
+package com.registo.horas_estagio.security;
+
+import java.time.Duration;
+
+/**
+ * Passo manual para escolher security.password.hashing.strength no hardware de produção.
+ * Não corre no arranque: cada pod calibraria um custo diferente e o upgradeEncoding
+ * reescreveria os hashes de um custo para o outro a cada login.
+ * <p>
+ * Uso (no jar da aplicação):
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.registo.horas_estagio.security.BCryptStrengthCalibration \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher PT0.25S
+ * </pre>
+ */
+public final class BCryptStrengthCalibration {
+
+    private BCryptStrengthCalibration() {
+    }
+
+    public static void main(String[] args) {
+        Duration targetTime = args.length > 0 ? Duration.parse(args[0]) : Duration.ofMillis(250);
+        int strength = BoundedBCryptPasswordEncoder.calibrateStrength(targetTime);
+        System.out.printf("Custo BCrypt recomendado para %d ms: security.password.hashing.strength=%d%n",
+                targetTime.toMillis(), strength);
+    }
+}
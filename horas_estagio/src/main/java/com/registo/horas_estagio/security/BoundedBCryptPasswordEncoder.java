@@ -0,0 +1,157 @@
+package com.registo.horas_estagio.security;
+
+import com.registo.horas_estagio.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PasswordEncoder BCrypt que executa o hashing num executor dedicado e limitado.
+ * Rajadas de login/registo ficam em fila (com limite) em vez de ocuparem todos os cores,
+ * e os pedidos acima da capacidade são rejeitados com PasswordHashingBusyException (503).
+ * <p>
+ * O custo (strength) é fixo na configuração, igual em todos os pods; hashes com custo inferior
+ * são atualizados no login através de upgradeEncoding. Para escolher o valor, ver
+ * {@link BCryptStrengthCalibration} (passo manual, fora do arranque).
+ * <p>
+ * O timeout só liberta quem está à espera: o BCrypt não verifica interrupções, pelo que um hash
+ * já iniciado corre até ao fim. O trabalho total é limitado pelo número de threads e pela fila.
+ */
+public class BoundedBCryptPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedBCryptPasswordEncoder.class);
+
+    static final int MIN_STRENGTH = 10;
+    static final int MAX_STRENGTH = 14;
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final int strength;
+    private final Counter rejected;
+
+    public BoundedBCryptPasswordEncoder(int strength, int threads, int queueCapacity, Duration timeout,
+                                        MeterRegistry meterRegistry) {
+        this.strength = strength;
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                hashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Gauge.builder("password.hashing.queue.size", executor, e -> e.getQueue().size())
+                .description("Pedidos de hashing à espera no executor BCrypt")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Threads do executor BCrypt a calcular hashes")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Pedidos de hashing rejeitados por falta de capacidade")
+                .register(meterRegistry);
+
+        log.info("Hashing BCrypt com strength {} em {} threads (fila: {})", strength, threads, queueCapacity);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Indica se o hash guardado usa um custo inferior ao atual (rehash transparente no login).
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Escolhe o maior custo (entre MIN_STRENGTH e MAX_STRENGTH) cujo hash demora no máximo targetTime.
+     */
+    public static int calibrateStrength(Duration targetTime) {
+        int chosen = MIN_STRENGTH;
+        for (int candidate = MIN_STRENGTH; candidate <= MAX_STRENGTH; candidate++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(candidate);
+            long start = System.nanoTime();
+            encoder.encode("calibracao-bcrypt");
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+            if (elapsed.compareTo(targetTime) > 0) {
+                break;
+            }
+            chosen = candidate;
+        }
+        log.info("Custo BCrypt calibrado para {} (alvo: {} ms)", chosen, targetTime.toMillis());
+        return chosen;
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Executor de hashing cheio ({} pedidos em fila)", executor.getQueue().size());
+            throw new PasswordHashingBusyException("Serviço de autenticação sobrecarregado, tente novamente");
+        }
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Só impede o início se ainda estiver na fila (purge liberta o lugar); um hash em curso termina na mesma
+            future.cancel(false);
+            executor.purge();
+            rejected.increment();
+            throw new PasswordHashingBusyException("Tempo limite excedido no hashing da password");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new PasswordHashingBusyException("Hashing da password interrompido");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Erro no hashing da password", e.getCause());
+        }
+    }
+
+    private static ThreadFactory hashingThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bcrypt-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
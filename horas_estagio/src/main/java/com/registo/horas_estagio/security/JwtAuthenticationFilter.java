@@ -3,6 +3,7 @@ package com.registo.horas_estagio.security;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.registo.horas_estagio.dto.response.ErrorResponse;
 import com.registo.horas_estagio.service.impl.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -29,6 +30,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private final JwtTokenUtil jwtTokenUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationIndex tokenRevocationIndex;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -48,22 +51,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             // Extrai o token (remove "Bearer " do início)
             final String jwt = authHeader.substring(7);
-            final String username = jwtTokenUtil.getUsernameFromToken(jwt);
+            final String digest = TokenDigest.of(jwt);
+
+            // Tokens revogados são rejeitados sem ir à base de dados (índice em memória)
+            if (tokenRevocationIndex.isRevoked(digest)) {
+                log.warn("Token JWT revogado usado no request {}", request.getRequestURI());
+                writeErrorResponse(response, "Token JWT revogado");
+                return;
+            }
+
+            // Tokens já verificados vêm do cache; os restantes passam pela verificação HMAC completa
+            final String username = verifiedTokenCache.get(digest)
+                    .map(VerifiedTokenCache.VerifiedToken::username)
+                    .orElseGet(() -> verifyAndCache(jwt, digest));
 
             // Se o username foi extraído e não há autenticação no contexto
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-                // Valida o token
-                if (jwtTokenUtil.validateToken(jwt)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
+                );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
             // segue a cadeia normalmente
             filterChain.doFilter(request, response);
@@ -82,6 +94,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
+    /**
+     * Verifica assinatura e expiração (lança JwtException se inválido) e guarda o resultado no cache.
+     */
+    private String verifyAndCache(String jwt, String digest) {
+        Claims claims = jwtTokenUtil.parseClaims(jwt);
+        String username = claims.getSubject();
+        if (claims.getExpiration() != null) {
+            verifiedTokenCache.put(digest, username, claims.getExpiration().toInstant());
+        }
+        return username;
+    }
+
     private void writeErrorResponse(HttpServletResponse response, String message) throws IOException {
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType("application/json");
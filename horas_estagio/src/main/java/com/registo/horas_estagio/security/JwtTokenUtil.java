@@ -1,6 +1,7 @@
 package com.registo.horas_estagio.security;
 
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
@@ -44,6 +45,18 @@ public class JwtTokenUtil {
                 .getSubject();
     }
 
+    /**
+     * Verifica a assinatura e a expiração do token e devolve os claims.
+     * Lança JwtException (ou ExpiredJwtException) quando o token não é válido.
+     */
+    public Claims parseClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(getKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
     public boolean validateToken(String token) {
         try {
             Jwts.parser()
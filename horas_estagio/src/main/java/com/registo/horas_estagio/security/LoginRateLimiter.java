@@ -0,0 +1,135 @@
+package com.registo.horas_estagio.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Limitação de tentativas de login por username e por IP (token bucket em memória).
+ * Avaliada antes de qualquer verificação BCrypt, para que rajadas de credenciais erradas
+ * não consumam CPU de hashing.
+ * <p>
+ * Os buckets vivem num ConcurrentHashMap (internamente particionado por bins) e cada bucket
+ * é atualizado sem locks via compare-and-set. Buckets inativos são removidos periodicamente.
+ * O IP é o do cliente original: atrás de proxy/load balancer depende de server.forward-headers-strategy.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(LoginRateLimiter.class);
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final BucketSpec usernameSpec;
+    private final BucketSpec ipSpec;
+    private final long idleEvictionNanos;
+
+    public LoginRateLimiter(
+            @Value("${security.login.rate-limit.username.capacity:5}") int usernameCapacity,
+            @Value("${security.login.rate-limit.username.refill-period:PT1M}") Duration usernameRefillPeriod,
+            @Value("${security.login.rate-limit.ip.capacity:20}") int ipCapacity,
+            @Value("${security.login.rate-limit.ip.refill-period:PT1M}") Duration ipRefillPeriod,
+            @Value("${security.login.rate-limit.idle-eviction:PT10M}") Duration idleEviction) {
+        this.usernameSpec = new BucketSpec(usernameCapacity, usernameRefillPeriod);
+        this.ipSpec = new BucketSpec(ipCapacity, ipRefillPeriod);
+        this.idleEvictionNanos = idleEviction.toNanos();
+    }
+
+    /**
+     * Consome uma tentativa do bucket do IP e do bucket do username.
+     *
+     * @return true se a tentativa pode prosseguir, false se deve ser rejeitada com 429
+     */
+    public boolean tryAcquire(String username, String clientIp) {
+        long now = System.nanoTime();
+        String ipKey = "ip:" + (clientIp == null ? "desconhecido" : clientIp);
+        if (!bucketFor(ipKey, ipSpec, now).tryConsume(now)) {
+            log.warn("Limite de tentativas de login excedido para o IP {}", clientIp);
+            return false;
+        }
+        String normalized = normalize(username);
+        if (!bucketFor("user:" + normalized, usernameSpec, now).tryConsume(now)) {
+            log.warn("Limite de tentativas de login excedido para o usuário {}", normalized);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Login bem-sucedido: repõe o bucket do username, para que só as falhas contem para o limite.
+     */
+    public void onSuccess(String username) {
+        buckets.remove("user:" + normalize(username));
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${security.login.rate-limit.eviction-interval:PT1M}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> now - bucket.lastAccessNanos() >= idleEvictionNanos);
+        log.debug("Rate limiter de login: {} buckets inativos removidos", before - buckets.size());
+    }
+
+    private static String normalize(String username) {
+        return username == null ? "" : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private TokenBucket bucketFor(String key, BucketSpec spec, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(spec, now));
+        }
+        return bucket;
+    }
+
+    private record BucketSpec(int capacity, double tokensPerNano) {
+        BucketSpec(int capacity, Duration refillPeriod) {
+            this(capacity, capacity / (double) refillPeriod.toNanos());
+        }
+    }
+
+    private record BucketState(double tokens, long lastRefillNanos) {
+    }
+
+    /**
+     * Token bucket lock-free: o estado (tokens + instante do último refill) é substituído atomicamente.
+     */
+    private static final class TokenBucket {
+
+        private final BucketSpec spec;
+        private final AtomicReference<BucketState> state;
+
+        private TokenBucket(BucketSpec spec, long now) {
+            this.spec = spec;
+            this.state = new AtomicReference<>(new BucketState(spec.capacity(), now));
+        }
+
+        boolean tryConsume(long now) {
+            while (true) {
+                BucketState current = state.get();
+                long elapsed = Math.max(0L, now - current.lastRefillNanos());
+                double available = Math.min(spec.capacity(), current.tokens() + elapsed * spec.tokensPerNano());
+                if (available < 1.0) {
+                    return false;
+                }
+                if (state.compareAndSet(current, new BucketState(available - 1.0, Math.max(now, current.lastRefillNanos())))) {
+                    return true;
+                }
+            }
+        }
+
+        long lastAccessNanos() {
+            return state.get().lastRefillNanos();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.registo.horas_estagio.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Calcula o digest (SHA-256) de um token JWT.
+ * O digest é usado como chave nas estruturas em memória, evitando guardar o token em claro.
+ */
+public final class TokenDigest {
+
+    private TokenDigest() {
+    }
+
+    public static String of(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 é obrigatório em todas as JVMs
+            throw new IllegalStateException("SHA-256 não disponível", e);
+        }
+    }
+}
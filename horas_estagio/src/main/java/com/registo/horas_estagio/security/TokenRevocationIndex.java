@@ -0,0 +1,98 @@
+package com.registo.horas_estagio.security;
+
+import com.registo.horas_estagio.models.JwtToken;
+import com.registo.horas_estagio.repository.JwtTokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice em memória dos tokens revogados (digest -> expiração).
+ * Carregado a partir da tabela jwt_token antes de o servidor web aceitar pedidos, atualizado em cada
+ * revogação e consultado em O(1) pelo JwtAuthenticationFilter. Entradas saem do índice quando o token expira.
+ * <p>
+ * Como SmartLifecycle numa fase anterior à do servidor web, o carregamento corre também após um
+ * restore CRaC (o pool de ligações já foi retomado) e apanha as revogações feitas depois do checkpoint.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationIndex implements SmartLifecycle {
+
+    // Antes do WebServerStartStopLifecycle (DEFAULT_PHASE - 2048) e depois dos pools HikariCP (fase 0)
+    static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationIndex.class);
+
+    private final JwtTokenRepository jwtTokenRepository;
+    private final ConcurrentHashMap<String, Instant> revoked = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        loadFromDatabase();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    public void loadFromDatabase() {
+        List<JwtToken> tokens = jwtTokenRepository.findByRevokedTrueAndExpiresAtAfter(Instant.now());
+        // merge: uma revogação feita em paralelo com a leitura nunca é substituída nem perdida
+        tokens.forEach(t -> add(TokenDigest.of(t.getToken()), t.getExpiresAt()));
+        log.info("Índice de revogação carregado com {} tokens", tokens.size());
+    }
+
+    public void revoke(String token, Instant expiresAt) {
+        add(TokenDigest.of(token), expiresAt);
+    }
+
+    private void add(String digest, Instant expiresAt) {
+        revoked.merge(digest, expiresAt, (atual, novo) -> atual.isAfter(novo) ? atual : novo);
+    }
+
+    public boolean isRevoked(String digest) {
+        Instant expiresAt = revoked.get(digest);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt.isBefore(Instant.now())) {
+            // Token já expirou: a verificação do "exp" rejeita-o, não é preciso mantê-lo no índice
+            revoked.remove(digest, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT10M}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        int before = revoked.size();
+        revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        log.debug("Índice de revogação: {} entradas expiradas removidas", before - revoked.size());
+    }
+}
@@ -0,0 +1,104 @@
+package com.registo.horas_estagio.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Cache limitado de tokens JWT já verificados (assinatura + claims).
+ * A chave é o digest do token e cada entrada expira no mínimo entre o TTL configurado e o "exp" do token,
+ * permitindo ao filtro evitar a verificação HMAC para tokens reutilizados.
+ * Caffeine: o limite de entradas e a expiração por entrada têm custo O(1), mesmo com o cache cheio.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, VerifiedToken> entries;
+    private final int maxEntries;
+    private final Duration ttl;
+
+    public VerifiedTokenCache(
+            @Value("${jwt.cache.max-entries:10000}") int maxEntries,
+            @Value("${jwt.cache.ttl:PT15M}") Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxEntries, 0))
+                .expireAfter(new CachedUntilExpiry())
+                // Manutenção (expiração/limite) na thread do pedido: sem tarefas no ForkJoinPool comum
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Devolve o token verificado associado ao digest, se existir e ainda estiver válido.
+     */
+    public Optional<VerifiedToken> get(String digest) {
+        return Optional.ofNullable(entries.getIfPresent(digest));
+    }
+
+    /**
+     * Guarda um token já verificado. O TTL da entrada nunca ultrapassa a expiração do token.
+     */
+    public void put(String digest, String username, Instant expiresAt) {
+        if (maxEntries <= 0 || username == null || expiresAt == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant cachedUntil = now.plus(ttl);
+        if (expiresAt.isBefore(cachedUntil)) {
+            cachedUntil = expiresAt;
+        }
+        if (!cachedUntil.isAfter(now)) {
+            return;
+        }
+        entries.put(digest, new VerifiedToken(username, expiresAt, cachedUntil));
+    }
+
+    /**
+     * Remove imediatamente a entrada (usado na revogação de tokens).
+     */
+    public void evict(String digest) {
+        entries.invalidate(digest);
+    }
+
+    /**
+     * Remove todas as entradas (checkpoint CRaC: nenhum token verificado sobrevive dentro da imagem).
+     */
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    public int size() {
+        entries.cleanUp();
+        return (int) entries.estimatedSize();
+    }
+
+    public record VerifiedToken(String username, Instant expiresAt, Instant cachedUntil) {
+    }
+
+    // Cada entrada expira em cachedUntil; leituras não prolongam a validade
+    private static final class CachedUntilExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(Duration.between(Instant.now(), value.cachedUntil()).toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.registo.horas_estagio.service;
+
+import com.registo.horas_estagio.dto.request.RegisterRequest;
+import com.registo.horas_estagio.dto.response.RegisterResponse;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyKeyService {
+
+    /**
+     * Executa a submissão uma única vez por (estagiário, chave).
+     * Retries com a mesma chave devolvem a resposta original sem executar a ação.
+     * Uma chave com mais de 255 caracteres é rejeitada com InvalidIdempotencyKeyException (400)
+     * antes de executar a ação.
+     */
+    RegisterResponse submitOnce(String idempotencyKey, RegisterRequest request, Supplier<RegisterResponse> action);
+}
@@ -20,4 +20,7 @@ public interface JwtTokenService {
     }
 
     Optional<JwtToken> getReusableTokenForUser(String username);
+
+    // Esvazia as caches em memória de tokens (a base de dados continua a ser a fonte de verdade)
+    void clearCachedTokens();
 }
\ No newline at end of file
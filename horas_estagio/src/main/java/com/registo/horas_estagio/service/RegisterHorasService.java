@@ -1,8 +1,12 @@
 package com.registo.horas_estagio.service;
 
+import com.registo.horas_estagio.dto.request.BulkDeleteRequest;
+import com.registo.horas_estagio.dto.request.RegisterPatchRequest;
 import com.registo.horas_estagio.dto.request.RegisterRequest;
+import com.registo.horas_estagio.dto.response.BulkDeleteResponse;
 import com.registo.horas_estagio.dto.response.PageResponse;
 import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.dto.response.RegisterStatusResponse;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
@@ -13,6 +17,22 @@ public interface RegisterHorasService {
 
     RegisterResponse submitHours(RegisterRequest request);
 
+    /**
+     * Valida o pedido e coloca-o na fila de ingestão assíncrona.
+     * O registo devolvido tem o publicId definitivo, mas pode ainda não estar gravado.
+     */
+    RegisterResponse submitHoursAsync(RegisterRequest request);
+
+    boolean isAsyncIngestionEnabled();
+
+    // Inclui registos aceites pela ingestão assíncrona ainda não gravados
+    RegisterResponse findRegisteredHours(UUID publicId);
+
+    /**
+     * Estado de um registo submetido de forma assíncrona: pendente, gravado ou falhado (com o motivo).
+     */
+    RegisterStatusResponse findRegisterStatus(UUID publicId);
+
     List<RegisterResponse> findAllRegisteredHours();
 
 
@@ -24,7 +44,21 @@ public interface RegisterHorasService {
 
     void DeleteRegisteredHoursUser(UUID publicId);
 
-    RegisterResponse updateRegister(UUID publicId, RegisterRequest request);
+    // Remoção em massa (ADMIN) em batches limitados
+    BulkDeleteResponse bulkDelete(BulkDeleteRequest request);
+
+    /**
+     * @param expectedVersion versão lida pelo cliente (If-Match); null para não verificar
+     */
+    RegisterResponse updateRegister(UUID publicId, RegisterRequest request, Long expectedVersion);
+
+    /**
+     * Atualização parcial sem carregar a entidade.
+     *
+     * @param owner           estagiário a quem o registo tem de pertencer; null para ADMIN
+     * @param expectedVersion versão lida pelo cliente (If-Match); null para não verificar
+     */
+    void patchRegister(UUID publicId, RegisterPatchRequest request, String owner, Long expectedVersion);
 
     Map<Integer, Double> getWeeklyHoursForYear(int year, String estagiario);
 
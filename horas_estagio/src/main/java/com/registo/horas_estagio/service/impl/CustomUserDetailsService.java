@@ -7,10 +7,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
@@ -18,7 +21,7 @@ import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     private static final Logger log = LoggerFactory.getLogger(CustomUserDetailsService.class);
     private final UsuarioRepository usuarioRepository;
 
@@ -34,13 +37,28 @@ public class CustomUserDetailsService implements UserDetailsService {
         log.info("Role do banco: {}", user.getRole());
         log.info("Authorities configuradas: {}", authorities);
 
-        return org.springframework.security.core.userdetails.User.builder()
+        return User.builder()
                 .username(user.getUsername())
                 .password(user.getPassword())
                 .authorities(authorities)
                 .build();
     }
 
+    /**
+     * Chamado pelo DaoAuthenticationProvider após um login válido quando o hash guardado
+     * usa um custo BCrypt inferior ao atual. Persiste o novo hash.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        usuarioRepository.findByUsername(user.getUsername()).ifPresent(usuario -> {
+            usuario.setPassword(newPassword);
+            usuarioRepository.save(usuario);
+            log.info("Hash da password atualizado para o custo atual: {}", usuario.getUsername());
+        });
+        return User.withUserDetails(user).password(newPassword).build();
+    }
+
     /**
      * Constrói a coleção de GrantedAuthority para o usuário.
      * Normaliza a role (adiciona prefixo ROLE_ se necessário) e valida sua presença.
@@ -0,0 +1,215 @@
+package com.registo.horas_estagio.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.registo.horas_estagio.dto.request.RegisterRequest;
+import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.exception.IdempotencyKeyInProgressException;
+import com.registo.horas_estagio.exception.IdempotencyKeyReuseException;
+import com.registo.horas_estagio.exception.InvalidIdempotencyKeyException;
+import com.registo.horas_estagio.models.IdempotencyKey;
+import com.registo.horas_estagio.repository.IdempotencyKeyRepository;
+import com.registo.horas_estagio.security.TokenDigest;
+import com.registo.horas_estagio.service.IdempotencyKeyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Idempotência das submissões de horas.
+ * <p>
+ * Um índice em memória (estagiário:chave → resposta futura) deteta retries concorrentes em O(1):
+ * o primeiro pedido executa, os restantes esperam pelo mesmo resultado. A tabela idempotency_key
+ * (única por estagiário + chave) garante a deteção entre instâncias e após reinícios; a chave é
+ * gravada na mesma transação do registo, pelo que um conflito reverte o INSERT em register_horas.
+ * <p>
+ * A impressão digital do pedido é o SHA-256 de uma serialização JSON canónica (propriedades por ordem
+ * alfabética, datas ISO-8601), independente do toString() do record. Um retry concorrente espera no
+ * máximo in-flight-timeout pelo pedido original; depois recebe 409 e pode tentar de novo.
+ */
+@Service
+public class IdempotencyKeyServiceImpl implements IdempotencyKeyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyServiceImpl.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper canonicalMapper;
+    private final Duration retention;
+    private final long memoryTtlNanos;
+    private final Duration inFlightTimeout;
+    private final ConcurrentHashMap<String, InFlight> index = new ConcurrentHashMap<>();
+
+    public IdempotencyKeyServiceImpl(
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            @Value("${idempotency.retention:P1D}") Duration retention,
+            @Value("${idempotency.memory-ttl:PT10M}") Duration memoryTtl,
+            @Value("${idempotency.in-flight-timeout:PT10S}") Duration inFlightTimeout) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.canonicalMapper = objectMapper.copy()
+                .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+                .configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false)
+                .configure(SerializationFeature.INDENT_OUTPUT, false);
+        this.retention = retention;
+        this.memoryTtlNanos = memoryTtl.toNanos();
+        this.inFlightTimeout = inFlightTimeout;
+    }
+
+    @Override
+    public RegisterResponse submitOnce(String idempotencyKey, RegisterRequest request, Supplier<RegisterResponse> action) {
+        validateKey(idempotencyKey);
+        String estagiario = request.estagiario().trim().toLowerCase(Locale.ROOT);
+        String requestHash = fingerprint(request);
+        String scope = estagiario + ":" + idempotencyKey;
+
+        long now = System.nanoTime();
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>(), now);
+        InFlight current = index.compute(scope, (k, old) -> old == null || old.isExpired(now, memoryTtlNanos) ? mine : old);
+        if (current != mine) {
+            log.info("Retry com Idempotency-Key {} do estagiário {}: a devolver a resposta original", idempotencyKey, estagiario);
+            return await(current, requestHash, idempotencyKey);
+        }
+
+        try {
+            RegisterResponse response = loadOrExecute(estagiario, idempotencyKey, requestHash, action);
+            mine.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            // Falhas não ficam em memória: um novo retry volta a tentar
+            index.remove(scope, mine);
+            mine.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        index.values().removeIf(entry -> entry.response().isDone() && entry.isExpired(now, memoryTtlNanos));
+        Integer removed = transactionTemplate.execute(status -> idempotencyKeyRepository.deleteExpired(Instant.now()));
+        log.debug("Chaves de idempotência expiradas removidas: {}", removed);
+    }
+
+    private RegisterResponse loadOrExecute(String estagiario, String idempotencyKey, String requestHash,
+                                           Supplier<RegisterResponse> action) {
+        var stored = idempotencyKeyRepository.findByEstagiarioAndIdempotencyKey(estagiario, idempotencyKey);
+        if (stored.isPresent()) {
+            return replay(stored.get(), requestHash, idempotencyKey);
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                RegisterResponse response = action.get();
+                Instant createdAt = Instant.now();
+                idempotencyKeyRepository.saveAndFlush(IdempotencyKey.builder()
+                        .estagiario(estagiario)
+                        .idempotencyKey(idempotencyKey)
+                        .requestHash(requestHash)
+                        .responseBody(serialize(response))
+                        .createdAt(createdAt)
+                        .expiresAt(createdAt.plus(retention))
+                        .build());
+                return response;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância gravou a mesma chave em simultâneo; a nossa transação foi revertida
+            log.info("Idempotency-Key {} gravada em concorrência, a devolver a resposta existente", idempotencyKey);
+            return idempotencyKeyRepository.findByEstagiarioAndIdempotencyKey(estagiario, idempotencyKey)
+                    .map(key -> replay(key, requestHash, idempotencyKey))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private RegisterResponse await(InFlight inFlight, String requestHash, String idempotencyKey) {
+        if (!inFlight.requestHash().equals(requestHash)) {
+            throw reuse(idempotencyKey);
+        }
+        try {
+            // copy(): o timeout aplica-se só a esta espera, sem completar o futuro partilhado
+            return inFlight.response().copy()
+                    .orTimeout(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                log.warn("Idempotency-Key {} ainda em processamento após {} ms", idempotencyKey, inFlightTimeout.toMillis());
+                throw new IdempotencyKeyInProgressException(
+                        "Pedido com a Idempotency-Key " + idempotencyKey + " ainda em processamento, tente novamente");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Valida o header antes de qualquer acesso ao índice ou à base de dados (coluna limitada a 255).
+     */
+    private static void validateKey(String idempotencyKey) {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key não pode exceder " + MAX_KEY_LENGTH + " caracteres (recebidos " + idempotencyKey.length() + ")");
+        }
+    }
+
+    private String fingerprint(RegisterRequest request) {
+        try {
+            return TokenDigest.of(canonicalMapper.writeValueAsString(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar o pedido", e);
+        }
+    }
+
+    private RegisterResponse replay(IdempotencyKey stored, String requestHash, String idempotencyKey) {
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw reuse(idempotencyKey);
+        }
+        try {
+            return objectMapper.readValue(stored.getResponseBody(), RegisterResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Resposta guardada inválida para a Idempotency-Key " + idempotencyKey, e);
+        }
+    }
+
+    private String serialize(RegisterResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar a resposta", e);
+        }
+    }
+
+    private IdempotencyKeyReuseException reuse(String idempotencyKey) {
+        log.warn("Idempotency-Key {} reutilizada com um pedido diferente", idempotencyKey);
+        return new IdempotencyKeyReuseException(
+                "Idempotency-Key " + idempotencyKey + " já foi usada com um pedido diferente");
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<RegisterResponse> response, long createdNanos) {
+        boolean isExpired(long now, long ttlNanos) {
+            return now - createdNanos >= ttlNanos;
+        }
+    }
+}
@@ -1,55 +1,110 @@
 // language: java
 package com.registo.horas_estagio.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.registo.horas_estagio.models.JwtToken;
-import com.registo.horas_estagio.models.Usuario;
 import com.registo.horas_estagio.repository.JwtTokenRepository;
-import com.registo.horas_estagio.repository.UsuarioRepository;
+import com.registo.horas_estagio.security.TokenDigest;
+import com.registo.horas_estagio.security.TokenRevocationIndex;
+import com.registo.horas_estagio.security.VerifiedTokenCache;
 import com.registo.horas_estagio.service.JwtTokenService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
 @Transactional
-@RequiredArgsConstructor
+@Timed(value = "jwt.token.service", histogram = true) // um timer por método (tags class/method)
 public class JwtTokenServiceImpl implements JwtTokenService {
 
     private final JwtTokenRepository jwtTokenRepository;
-    private final UsuarioRepository usuarioRepository;
+    private final JwtTokenWriteBehindQueue jwtTokenWriteBehindQueue;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationIndex tokenRevocationIndex;
 
+    // username -> token ativo mais recente; evita a consulta à BD em logins repetidos.
+    // Limitado e com expiração igual à validade do token: usuários que não voltam não ficam em memória
+    private final Cache<String, JwtToken> activeTokens;
+    // token -> username (índice inverso), para a revogação remover a entrada em O(1)
+    private final Cache<String, String> activeTokenOwners;
+
+    public JwtTokenServiceImpl(
+            JwtTokenRepository jwtTokenRepository,
+            JwtTokenWriteBehindQueue jwtTokenWriteBehindQueue,
+            VerifiedTokenCache verifiedTokenCache,
+            TokenRevocationIndex tokenRevocationIndex,
+            @Value("${jwt.active-tokens.max-entries:10000}") int maxActiveTokens,
+            @Value("${jwt.expiration}") long expirationMillis) {
+        this.jwtTokenRepository = jwtTokenRepository;
+        this.jwtTokenWriteBehindQueue = jwtTokenWriteBehindQueue;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocationIndex = tokenRevocationIndex;
+        Duration tokenTtl = Duration.ofMillis(expirationMillis);
+        this.activeTokens = Caffeine.newBuilder()
+                .maximumSize(maxActiveTokens)
+                .expireAfterWrite(tokenTtl)
+                .build();
+        this.activeTokenOwners = Caffeine.newBuilder()
+                .maximumSize(maxActiveTokens)
+                .expireAfterWrite(tokenTtl)
+                .build();
+    }
+
+    /**
+     * A gravação é feita em batch pela fila write-behind; o token fica disponível de imediato em memória.
+     */
     @Override
     public void saveToken(String token, String username, Instant issuedAt, Instant expiresAt) {
-        Usuario usuario = usuarioRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalStateException("Usuario não encontrado: " + username));
+        String normalized = normalize(username);
+        jwtTokenWriteBehindQueue.enqueue(token, normalized, issuedAt, expiresAt);
         JwtToken jwtToken = new JwtToken();
         jwtToken.setToken(token);
         jwtToken.setIssuedAt(issuedAt);
         jwtToken.setExpiresAt(expiresAt);
-        jwtToken.setRevoked(false);
-        jwtToken.setUsuario(usuario);
-        jwtTokenRepository.save(jwtToken);
+        cacheActiveToken(normalized, jwtToken);
     }
 
     @Override
     public Optional<JwtToken> findByToken(String token) {
+        Optional<JwtToken> pendingToken = jwtTokenWriteBehindQueue.findPending(token).map(this::toJwtToken);
+        if (pendingToken.isPresent()) {
+            return pendingToken;
+        }
         return jwtTokenRepository.findByToken(token);
     }
 
     @Override
     public void revokeToken(String token) {
-        jwtTokenRepository.findByToken(token).ifPresent(t -> {
+        // Token ainda na fila: é gravado (ou atualizado) já como revogado
+        Instant expiresAt = jwtTokenWriteBehindQueue.revokePending(token).orElse(null);
+        Optional<JwtToken> persisted = jwtTokenRepository.findByToken(token);
+        if (persisted.isPresent()) {
+            JwtToken t = persisted.get();
             t.setRevoked(true);
             jwtTokenRepository.save(t);
-        });
+            expiresAt = t.getExpiresAt();
+        }
+        if (expiresAt != null) {
+            tokenRevocationIndex.revoke(token, expiresAt);
+        }
+        String owner = activeTokenOwners.asMap().remove(token);
+        if (owner != null) {
+            activeTokens.asMap().computeIfPresent(owner, (user, cached) -> cached.getToken().equals(token) ? null : cached);
+        }
+        // Remove do cache de tokens verificados para que a revogação tenha efeito imediato
+        verifiedTokenCache.evict(TokenDigest.of(token));
     }
 
     @Override
     public boolean isTokenActive(String token) {
-        return jwtTokenRepository.findByToken(token)
+        return findByToken(token)
                 .filter(t -> !t.isRevoked())
                 .filter(t -> t.getExpiresAt().isAfter(Instant.now()))
                 .isPresent();
@@ -57,9 +112,56 @@ public class JwtTokenServiceImpl implements JwtTokenService {
     @Override
     public Optional<JwtToken> getReusableTokenForUser(String username) {
         Instant now = Instant.now();
-        return jwtTokenRepository
+        username = normalize(username);
+        JwtToken cached = activeTokens.getIfPresent(username);
+        if (cached != null) {
+            // Um token não gravado é revogado em memória pela fila write-behind: não pode ser reutilizado
+            if (cached.getExpiresAt().isAfter(now) && !tokenRevocationIndex.isRevoked(TokenDigest.of(cached.getToken()))) {
+                return Optional.of(cached);
+            }
+            activeTokens.asMap().remove(username, cached);
+        }
+        Optional<JwtToken> reusable = jwtTokenRepository
                 .findTopByUsuario_UsernameAndRevokedFalseOrderByExpiresAtDesc(username)
                 .filter(t -> t.getExpiresAt().isAfter(now));
+        reusable.ifPresent(t -> cacheActiveToken(username, t));
+        return reusable;
+    }
+
+    @Override
+    public void clearCachedTokens() {
+        activeTokens.invalidateAll();
+        activeTokenOwners.invalidateAll();
+        verifiedTokenCache.clear();
+    }
+
+    private JwtToken toJwtToken(JwtTokenWriteBehindQueue.PendingToken pendingToken) {
+        JwtToken jwtToken = new JwtToken();
+        jwtToken.setToken(pendingToken.token());
+        jwtToken.setIssuedAt(pendingToken.issuedAt());
+        jwtToken.setExpiresAt(pendingToken.expiresAt());
+        jwtToken.setPublicId(pendingToken.publicId());
+        jwtToken.setRevoked(pendingToken.isRevoked());
+        return jwtToken;
+    }
+
+    /**
+     * Guarda uma cópia (sem associação ao usuário) do token ativo, mantendo o de expiração mais tardia.
+     */
+    private void cacheActiveToken(String username, JwtToken token) {
+        JwtToken snapshot = new JwtToken();
+        snapshot.setToken(token.getToken());
+        snapshot.setIssuedAt(token.getIssuedAt());
+        snapshot.setExpiresAt(token.getExpiresAt());
+        snapshot.setPublicId(token.getPublicId());
+        snapshot.setRevoked(false);
+        activeTokens.asMap().merge(username, snapshot,
+                (atual, novo) -> novo.getExpiresAt().isAfter(atual.getExpiresAt()) ? novo : atual);
+        activeTokenOwners.put(snapshot.getToken(), username);
+    }
+
+    private static String normalize(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,318 @@
+package com.registo.horas_estagio.service.impl;
+
+import com.registo.horas_estagio.exception.TokenPersistenceException;
+import com.registo.horas_estagio.security.TokenRevocationIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fila write-behind para a persistência de tokens JWT.
+ * Os tokens emitidos no login/registo são colocados numa fila limitada e gravados por uma única thread
+ * em batches JDBC (a cada batch-size tokens ou flush-interval), fora da thread do pedido.
+ * <p>
+ * Enquanto não são gravados, os tokens ficam visíveis através de {@link #findPending(String)}.
+ * Se a fila estiver cheia, o produtor espera até offer-timeout (backpressure) e, esgotado o tempo,
+ * o token é gravado de forma síncrona; se essa gravação falhar o login é rejeitado (503).
+ * <p>
+ * Se um batch falhar, os tokens são gravados um a um para que uma linha inválida não afete as outras.
+ * Um token que não é possível gravar não seria encontrado no logout nem na revogação, pelo que é
+ * revogado no {@link TokenRevocationIndex} até expirar em vez de ficar válido sem registo.
+ */
+@Component
+public class JwtTokenWriteBehindQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenWriteBehindQueue.class);
+
+    // Resolve o usuario_id no próprio INSERT, evitando o findByUsername prévio
+    private static final String INSERT_SQL = """
+            INSERT INTO jwt_token (token, issued_at, expires_at, revoked, public_id, usuario_id)
+            SELECT ?, ?, ?, ?, ?, u.id FROM usuario u WHERE u.username = ?
+            """;
+    private static final String REVOKE_SQL = "UPDATE jwt_token SET revoked = true WHERE token = ?";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TokenRevocationIndex tokenRevocationIndex;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final BlockingQueue<PendingToken> queue;
+    private final ConcurrentHashMap<String, PendingToken> pending = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public JwtTokenWriteBehindQueue(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            TokenRevocationIndex tokenRevocationIndex,
+            @Value("${jwt.persistence.batch-size:50}") int batchSize,
+            @Value("${jwt.persistence.flush-interval:PT0.2S}") Duration flushInterval,
+            @Value("${jwt.persistence.queue-capacity:10000}") int queueCapacity,
+            @Value("${jwt.persistence.offer-timeout:PT0.1S}") Duration offerTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.tokenRevocationIndex = tokenRevocationIndex;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Coloca o token na fila de persistência. Bloqueia até offer-timeout se a fila estiver cheia.
+     *
+     * @throws TokenPersistenceException se a gravação síncrona (fila cheia ou parada) falhar
+     */
+    public void enqueue(String token, String username, Instant issuedAt, Instant expiresAt) {
+        PendingToken pendingToken = new PendingToken(token, username, issuedAt, expiresAt, UUID.randomUUID());
+        pending.put(token, pendingToken);
+        boolean queued = false;
+        if (running) {
+            try {
+                queued = queue.offer(pendingToken, offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            log.warn("Fila de tokens cheia ou parada, gravação síncrona do token do usuário {}", username);
+            if (!flush(List.of(pendingToken)).isEmpty()) {
+                throw new TokenPersistenceException("Não foi possível emitir o token, tente novamente");
+            }
+        }
+    }
+
+    /**
+     * Token ainda não gravado na base de dados (vista em memória).
+     */
+    public Optional<PendingToken> findPending(String token) {
+        return Optional.ofNullable(pending.get(token));
+    }
+
+    /**
+     * Marca como revogado um token ainda pendente.
+     *
+     * @return a expiração do token, se estava pendente
+     */
+    public Optional<Instant> revokePending(String token) {
+        PendingToken pendingToken = pending.get(token);
+        if (pendingToken == null) {
+            return Optional.empty();
+        }
+        pendingToken.revoked = true;
+        return Optional.of(pendingToken.expiresAt());
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = new Thread(this::drainLoop, "jwt-token-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            // Sem interrupt: a thread termina no próximo poll sem cortar um batch a meio
+            try {
+                writer.join(flushInterval.multipliedBy(10).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Garante que nada fica por gravar
+        List<PendingToken> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                PendingToken first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingToken> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        break;
+                    }
+                    PendingToken next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // stop() trata do que ficar na fila
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Grava o batch e devolve os tokens que não foi possível gravar (já revogados em memória).
+     */
+    private List<PendingToken> flush(List<PendingToken> batch) {
+        List<PendingToken> failed = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                failed = transactionTemplate.execute(status -> insertBatch(batch));
+                break;
+            } catch (DataIntegrityViolationException e) {
+                // Uma linha inválida não pode fazer falhar o batch inteiro em todas as tentativas
+                log.warn("Batch de tokens rejeitado ({}), a gravar individualmente", e.getMostSpecificCause().getMessage());
+                break;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    log.error("Falha ao gravar {} tokens após {} tentativas: {}", batch.size(), attempt, e.getMessage(), e);
+                } else {
+                    log.warn("Falha ao gravar batch de tokens (tentativa {}): {}", attempt, e.getMessage());
+                }
+            }
+        }
+        if (failed == null) {
+            failed = insertIndividually(batch);
+        }
+        failed.forEach(this::revokeUnpersisted);
+        batch.forEach(t -> pending.remove(t.token(), t));
+        // Revogações que chegaram durante a gravação
+        for (PendingToken t : batch) {
+            if (t.isRevoked() && !failed.contains(t)) {
+                jdbcTemplate.update(REVOKE_SQL, t.token());
+            }
+        }
+        return failed;
+    }
+
+    private List<PendingToken> insertIndividually(List<PendingToken> batch) {
+        List<PendingToken> failed = new ArrayList<>();
+        for (PendingToken token : batch) {
+            try {
+                List<PendingToken> notInserted = transactionTemplate.execute(status -> insertBatch(List.of(token)));
+                if (notInserted != null) {
+                    failed.addAll(notInserted);
+                }
+            } catch (RuntimeException e) {
+                log.error("Falha ao gravar o token do usuário {}: {}", token.username(), e.getMessage(), e);
+                failed.add(token);
+            }
+        }
+        return failed;
+    }
+
+    // Sem registo na base de dados o token não seria revogável no logout: fica revogado até expirar
+    private void revokeUnpersisted(PendingToken token) {
+        tokenRevocationIndex.revoke(token.token(), token.expiresAt());
+        log.error("Token do usuário {} não gravado: revogado em memória até {}", token.username(), token.expiresAt());
+    }
+
+    /**
+     * @return os tokens não gravados (usuário inexistente)
+     */
+    private List<PendingToken> insertBatch(List<PendingToken> batch) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, t) -> {
+            ps.setString(1, t.token());
+            ps.setObject(2, OffsetDateTime.ofInstant(t.issuedAt(), ZoneOffset.UTC));
+            ps.setObject(3, OffsetDateTime.ofInstant(t.expiresAt(), ZoneOffset.UTC));
+            ps.setBoolean(4, t.isRevoked());
+            ps.setObject(5, t.publicId());
+            ps.setString(6, t.username());
+        });
+        log.debug("Batch de {} tokens gravado", batch.size());
+        List<PendingToken> notInserted = new ArrayList<>();
+        for (int i = 0; i < counts[0].length; i++) {
+            if (counts[0][i] == 0) {
+                log.warn("Token não gravado: usuário {} não encontrado", batch.get(i).username());
+                notInserted.add(batch.get(i));
+            }
+        }
+        return notInserted;
+    }
+
+    /**
+     * Token à espera de ser gravado. O campo revoked é mutável para refletir revogações antes do flush.
+     */
+    public static final class PendingToken {
+
+        private final String token;
+        private final String username;
+        private final Instant issuedAt;
+        private final Instant expiresAt;
+        private final UUID publicId;
+        private volatile boolean revoked;
+
+        PendingToken(String token, String username, Instant issuedAt, Instant expiresAt, UUID publicId) {
+            this.token = token;
+            this.username = username;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+            this.publicId = publicId;
+        }
+
+        public String token() {
+            return token;
+        }
+
+        public String username() {
+            return username;
+        }
+
+        public Instant issuedAt() {
+            return issuedAt;
+        }
+
+        public Instant expiresAt() {
+            return expiresAt;
+        }
+
+        public UUID publicId() {
+            return publicId;
+        }
+
+        public boolean isRevoked() {
+            return revoked;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.registo.horas_estagio.service.impl;
+
+import com.registo.horas_estagio.repository.RegistroHorasRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Remoção em massa de registos em batches limitados.
+ * Cada batch corre na sua própria transação, para não manter locks sobre milhares de linhas
+ * nem gerar uma única transação longa; um batch que falha não desfaz os anteriores.
+ */
+@Component
+public class RegisterHorasBulkDeleter {
+
+    private static final Logger log = LoggerFactory.getLogger(RegisterHorasBulkDeleter.class);
+
+    private final RegistroHorasRepository registroHorasRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public RegisterHorasBulkDeleter(
+            RegistroHorasRepository registroHorasRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${registos.bulk-delete.batch-size:500}") int batchSize) {
+        this.registroHorasRepository = registroHorasRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public long deleteByPublicIds(List<UUID> publicIds) {
+        long total = 0;
+        for (int from = 0; from < publicIds.size(); from += batchSize) {
+            List<UUID> batch = publicIds.subList(from, Math.min(from + batchSize, publicIds.size()));
+            Integer deleted = transactionTemplate.execute(status -> registroHorasRepository.deleteByPublicIdIn(batch));
+            total += deleted == null ? 0 : deleted;
+        }
+        log.info("Remoção em massa por ID: {} de {} registos removidos", total, publicIds.size());
+        return total;
+    }
+
+    public long deleteByEstagiarioAndPeriod(String estagiario, LocalDateTime inicio, LocalDateTime fim) {
+        long total = 0;
+        while (true) {
+            PeriodBatch batch = transactionTemplate.execute(status -> {
+                List<Long> ids = registroHorasRepository.findIdsByEstagiarioAndPeriod(
+                        estagiario, inicio, fim, PageRequest.of(0, batchSize));
+                return new PeriodBatch(ids.size(), ids.isEmpty() ? 0 : registroHorasRepository.deleteByIdIn(ids));
+            });
+            if (batch == null) {
+                break;
+            }
+            total += batch.deleted();
+            // Decide pelos IDs selecionados: uma remoção concorrente reduz "deleted" sem esgotar o período
+            if (batch.selected() < batchSize) {
+                break;
+            }
+        }
+        log.info("Remoção em massa de {} entre {} e {}: {} registos removidos", estagiario, inicio, fim, total);
+        return total;
+    }
+
+    private record PeriodBatch(int selected, int deleted) {
+    }
+}
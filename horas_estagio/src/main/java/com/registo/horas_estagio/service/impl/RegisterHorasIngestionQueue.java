@@ -0,0 +1,344 @@
+package com.registo.horas_estagio.service.impl;
+
+import com.registo.horas_estagio.models.RegisterHorasIngestionFalha.Motivo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestão assíncrona (group commit) de registos de horas.
+ * Os pedidos já validados são colocados numa fila limitada e um único writer grava-os em batches JDBC,
+ * vários registos por transação, em vez de um commit por pedido.
+ * <p>
+ * Desativada por omissão (registos.ingestion.enabled). Enquanto não são gravados, os registos
+ * ficam visíveis através de {@link #findPending(UUID)} (read-your-writes).
+ * Registos que não é possível gravar (sobreposição, restrição ou erro persistente) não são descartados:
+ * vão para a tabela register_horas_ingestion_falha com o motivo, consultável pelo publicId.
+ * Métricas: registos.ingestion.queue.size, registos.ingestion.commit, registos.ingestion.failed
+ * e registos.ingestion.rejected.
+ */
+@Component
+public class RegisterHorasIngestionQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(RegisterHorasIngestionQueue.class);
+
+    private static final String INSERT_SQL = """
+            INSERT INTO register_horas (public_id, estagiario, descricao, data_inicio, data_fim, usuario_id, version)
+            VALUES (?, ?, ?, ?, ?, ?, 0)
+            """;
+    private static final String INSERT_FALHA_SQL = """
+            INSERT INTO register_horas_ingestion_falha
+                (public_id, estagiario, descricao, data_inicio, data_fim, usuario_id, motivo, detalhe, failed_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final int MAX_ATTEMPTS = 3;
+    // 23P01 = exclusion_violation (constraint register_horas_sem_sobreposicao)
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final BlockingQueue<PendingRegister> queue;
+    private final ConcurrentHashMap<UUID, PendingRegister> pending = new ConcurrentHashMap<>();
+    // Falhas ainda não gravadas na tabela de dead-letter (ex.: base de dados indisponível)
+    private final ConcurrentHashMap<UUID, FailedRegister> failures = new ConcurrentHashMap<>();
+    private final Timer commitTimer;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public RegisterHorasIngestionQueue(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${registos.ingestion.enabled:false}") boolean enabled,
+            @Value("${registos.ingestion.batch-size:100}") int batchSize,
+            @Value("${registos.ingestion.flush-interval:PT0.05S}") Duration flushInterval,
+            @Value("${registos.ingestion.queue-capacity:5000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("registos.ingestion.queue.size", queue, BlockingQueue::size)
+                .description("Registos de horas à espera de gravação")
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("registos.ingestion.commit")
+                .description("Latência de gravação de um batch de registos")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("registos.ingestion.failed")
+                .description("Registos aceites que não foi possível gravar")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("registos.ingestion.rejected")
+                .description("Registos aceites rejeitados por restrições da base de dados (ex.: sobreposição)")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Coloca o registo na fila sem bloquear.
+     *
+     * @return false se a fila estiver cheia ou parada (o pedido deve ser rejeitado)
+     */
+    public boolean offer(PendingRegister register) {
+        if (!running) {
+            return false;
+        }
+        pending.put(register.publicId(), register);
+        if (!queue.offer(register)) {
+            pending.remove(register.publicId(), register);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Registo aceite mas ainda não gravado na base de dados.
+     */
+    public Optional<PendingRegister> findPending(UUID publicId) {
+        return Optional.ofNullable(pending.get(publicId));
+    }
+
+    /**
+     * Registo aceite que falhou e cuja falha ainda não foi gravada na tabela de dead-letter.
+     */
+    public Optional<FailedRegister> findFailure(UUID publicId) {
+        return Optional.ofNullable(failures.get(publicId));
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "registos-ingestion-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(flushInterval.multipliedBy(10).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<PendingRegister> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+        if (!failures.isEmpty()) {
+            log.error("{} registos falhados não foram gravados no dead-letter: {}", failures.size(), failures.keySet());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                PendingRegister first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingRegister> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                // Group commit: espera no máximo flush-interval para juntar mais registos
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        break;
+                    }
+                    PendingRegister next = queue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<PendingRegister> batch) {
+        insertWithRetries(batch);
+        // Só sai de "pendente" depois de gravado ou registado como falhado: o cliente nunca vê "não encontrado"
+        batch.forEach(r -> pending.remove(r.publicId(), r));
+        recordFailures();
+    }
+
+    private void insertWithRetries(List<PendingRegister> batch) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                commitTimer.record(() -> transactionTemplate.executeWithoutResult(status -> insertBatch(batch)));
+                log.debug("Batch de {} registos gravado", batch.size());
+                break;
+            } catch (DataIntegrityViolationException e) {
+                // Um registo inválido (ex.: período sobreposto) não pode rejeitar o batch inteiro
+                log.warn("Batch de registos rejeitado ({}), a gravar individualmente", e.getMostSpecificCause().getMessage());
+                insertIndividually(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    failedCounter.increment(batch.size());
+                    log.error("Falha ao gravar {} registos após {} tentativas: {}", batch.size(), attempt, e.getMessage(), e);
+                    batch.forEach(r -> markFailed(r, Motivo.FALHA_GRAVACAO, e.getMessage()));
+                } else {
+                    log.warn("Falha ao gravar batch de registos (tentativa {}): {}", attempt, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void insertIndividually(List<PendingRegister> batch) {
+        for (PendingRegister register : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertBatch(List.of(register)));
+            } catch (DataIntegrityViolationException e) {
+                rejectedCounter.increment();
+                String detalhe = e.getMostSpecificCause().getMessage();
+                log.warn("Registo {} de {} rejeitado pela base de dados: {}", register.publicId(), register.estagiario(), detalhe);
+                markFailed(register, EXCLUSION_VIOLATION.equals(sqlState(e)) ? Motivo.SOBREPOSICAO : Motivo.RESTRICAO, detalhe);
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                log.error("Falha ao gravar o registo {}: {}", register.publicId(), e.getMessage(), e);
+                markFailed(register, Motivo.FALHA_GRAVACAO, e.getMessage());
+            }
+        }
+    }
+
+    private void markFailed(PendingRegister register, Motivo motivo, String detalhe) {
+        failures.put(register.publicId(), new FailedRegister(register, motivo, detalhe, Instant.now()));
+    }
+
+    /**
+     * Grava as falhas na tabela de dead-letter. As que não for possível gravar (ex.: base de dados em baixo)
+     * ficam em memória, visíveis em {@link #findFailure(UUID)}, e são tentadas de novo no próximo flush.
+     */
+    private void recordFailures() {
+        for (FailedRegister failure : List.copyOf(failures.values())) {
+            try {
+                insertFailure(failure);
+                failures.remove(failure.register().publicId(), failure);
+            } catch (DataIntegrityViolationException e) {
+                // Já gravada numa tentativa anterior cujo commit não foi confirmado
+                failures.remove(failure.register().publicId(), failure);
+            } catch (RuntimeException e) {
+                log.warn("Não foi possível gravar a falha do registo {} no dead-letter: {}",
+                        failure.register().publicId(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void insertFailure(FailedRegister failure) {
+        PendingRegister r = failure.register();
+        jdbcTemplate.update(INSERT_FALHA_SQL, ps -> {
+            ps.setObject(1, r.publicId());
+            ps.setString(2, r.estagiario());
+            ps.setString(3, r.descricao());
+            ps.setTimestamp(4, Timestamp.valueOf(r.dataInicio()));
+            ps.setTimestamp(5, Timestamp.valueOf(r.dataFim()));
+            ps.setLong(6, r.usuarioId());
+            ps.setString(7, failure.motivo().name());
+            ps.setString(8, failure.detalhe());
+            ps.setTimestamp(9, Timestamp.from(failure.failedAt()));
+        });
+    }
+
+    private static String sqlState(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                return sqlException.getSQLState();
+            }
+        }
+        return null;
+    }
+
+    private void insertBatch(List<PendingRegister> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, r) -> {
+            ps.setObject(1, r.publicId());
+            ps.setString(2, r.estagiario());
+            ps.setString(3, r.descricao());
+            ps.setTimestamp(4, Timestamp.valueOf(r.dataInicio()));
+            ps.setTimestamp(5, Timestamp.valueOf(r.dataFim()));
+            ps.setLong(6, r.usuarioId());
+        });
+    }
+
+    /**
+     * Registo validado à espera de ser gravado. O publicId é gerado antes da gravação
+     * para poder ser devolvido ao cliente com 202; os minutos servem apenas para essa resposta
+     * (na base de dados a coluna é gerada a partir das datas).
+     */
+    public record PendingRegister(
+            UUID publicId,
+            String estagiario,
+            String descricao,
+            LocalDateTime dataInicio,
+            LocalDateTime dataFim,
+            int minutosTrabalhados,
+            Long usuarioId
+    ) {
+    }
+
+    /**
+     * Registo aceite que não foi gravado, com o motivo a devolver ao cliente.
+     */
+    public record FailedRegister(
+            PendingRegister register,
+            Motivo motivo,
+            String detalhe,
+            Instant failedAt
+    ) {
+    }
+}
@@ -1,24 +1,35 @@
 package com.registo.horas_estagio.service.impl;
 
+import com.registo.horas_estagio.dto.request.BulkDeleteRequest;
+import com.registo.horas_estagio.dto.request.RegisterPatchRequest;
 import com.registo.horas_estagio.dto.request.RegisterRequest;
+import com.registo.horas_estagio.dto.response.BulkDeleteResponse;
 import com.registo.horas_estagio.dto.response.PageResponse;
 import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.dto.response.RegisterStatusResponse;
+import com.registo.horas_estagio.exception.IngestionQueueFullException;
+import com.registo.horas_estagio.exception.RegisterIngestionFailedException;
+import com.registo.horas_estagio.exception.RegisterVersionConflictException;
+import com.registo.horas_estagio.mapper.DuracaoMapper;
 import com.registo.horas_estagio.mapper.RequestMapper;
 import com.registo.horas_estagio.models.RegisterHoras;
+import com.registo.horas_estagio.models.RegisterHorasIngestionFalha;
 import com.registo.horas_estagio.models.Usuario;
+import com.registo.horas_estagio.repository.RegisterHorasIngestionFalhaRepository;
 import com.registo.horas_estagio.repository.RegistroHorasRepository;
 import com.registo.horas_estagio.repository.UsuarioRepository;
 import com.registo.horas_estagio.service.RegisterHorasService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.IsoFields;
@@ -26,6 +37,7 @@ import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 
 @Service
+@Timed(value = "registos.service", histogram = true) // um timer por método (tags class/method)
 @RequiredArgsConstructor
 public class RegisterHorasServiceImpl implements RegisterHorasService {
     private static final Logger log = LoggerFactory.getLogger(RegisterHorasServiceImpl.class);
@@ -33,6 +45,10 @@ public class RegisterHorasServiceImpl implements RegisterHorasService {
     private final RequestMapper requestMapper;
     private final RegistroHorasRepository registroHorasRepository;
     private final UsuarioRepository usuarioRepository;
+    private final UsuarioIdCache usuarioIdCache;
+    private final RegisterHorasIngestionQueue ingestionQueue;
+    private final RegisterHorasBulkDeleter bulkDeleter;
+    private final RegisterHorasIngestionFalhaRepository ingestionFalhaRepository;
 
     @Override
     public RegisterResponse submitHours(RegisterRequest request) {
@@ -43,18 +59,97 @@ public class RegisterHorasServiceImpl implements RegisterHorasService {
         Usuario usuario = getUsuario(request.estagiario());
         registerHoras.setUsuario(usuario);
 
-        // Calcula horas automaticamente se não fornecido
-        if (shouldCalculateHours(request)) {
-            double horasCalculadas = calculateHoursBetween(request.dataInicio(), request.dataFim());
-            registerHoras.setHorasTrabalhadas(horasCalculadas);
-            log.debug("Horas calculadas automaticamente: {} horas", horasCalculadas);
-        }
+        // minutos_trabalhados é gerado pela base de dados a partir das datas; aqui só se validam
+        validateInterval(request.dataInicio(), request.dataFim());
 
         RegisterHoras saved = registroHorasRepository.save(registerHoras);
         log.info("Registro criado com sucesso. ID: {}", saved.getId());
         return requestMapper.mapRegisterResponse(saved);
     }
 
+    @Override
+    public RegisterResponse submitHoursAsync(RegisterRequest request) {
+        log.info("Aceitando registo assíncrono para o estagiário: {}", request.estagiario());
+
+        // Validações feitas antes de responder 202: usuário existe e datas coerentes
+        Long usuarioId = resolveUsuarioId(request.estagiario());
+        // Mesmo cálculo da coluna gerada, para a resposta antes da gravação
+        int minutos = calculateMinutesBetween(request.dataInicio(), request.dataFim());
+
+        RegisterHorasIngestionQueue.PendingRegister pendente = new RegisterHorasIngestionQueue.PendingRegister(
+                UUID.randomUUID(),
+                request.estagiario().trim().toLowerCase(),
+                request.descricao(),
+                request.dataInicio(),
+                request.dataFim(),
+                minutos,
+                usuarioId
+        );
+        if (!ingestionQueue.offer(pendente)) {
+            log.warn("Fila de ingestão cheia, registo de {} rejeitado", request.estagiario());
+            throw new IngestionQueueFullException("Fila de ingestão cheia, tente novamente");
+        }
+        log.debug("Registo {} colocado na fila de ingestão", pendente.publicId());
+        return toResponse(pendente);
+    }
+
+    @Override
+    public boolean isAsyncIngestionEnabled() {
+        return ingestionQueue.isEnabled();
+    }
+
+    @Override
+    // Sem readOnly: lê sempre do primário (read-your-writes após POST/PUT e ETag atual para If-Match)
+    @Transactional
+    public RegisterResponse findRegisteredHours(UUID publicId) {
+        return ingestionQueue.findPending(publicId)
+                .map(this::toResponse)
+                .orElseGet(() -> registroHorasRepository.findByPublicId(publicId)
+                        .map(requestMapper::mapRegisterResponse)
+                        .orElseThrow(() -> {
+                            if (findIngestionFailure(publicId).isPresent()) {
+                                log.warn("Registo {} aceite mas não gravado", publicId);
+                                return new RegisterIngestionFailedException("Registo " + publicId
+                                        + " não foi gravado, consulte /api/registos/" + publicId + "/estado");
+                            }
+                            log.error("Registro não encontrado com ID: {}", publicId);
+                            return new RuntimeException("Registro não encontrado com ID: " + publicId);
+                        }));
+    }
+
+    @Override
+    @Transactional
+    public RegisterStatusResponse findRegisterStatus(UUID publicId) {
+        Optional<RegisterHorasIngestionQueue.PendingRegister> pendente = ingestionQueue.findPending(publicId);
+        if (pendente.isPresent()) {
+            return new RegisterStatusResponse(publicId, pendente.get().estagiario(), RegisterStatusResponse.Estado.PENDENTE, null);
+        }
+        Optional<RegisterHoras> gravado = registroHorasRepository.findByPublicId(publicId);
+        if (gravado.isPresent()) {
+            return new RegisterStatusResponse(publicId, gravado.get().getEstagiario(), RegisterStatusResponse.Estado.GRAVADO, null);
+        }
+        return findIngestionFailure(publicId)
+                .orElseThrow(() -> {
+                    log.error("Registro não encontrado com ID: {}", publicId);
+                    return new RuntimeException("Registro não encontrado com ID: " + publicId);
+                });
+    }
+
+    // Falha ainda em memória no writer ou já gravada na tabela de dead-letter
+    private Optional<RegisterStatusResponse> findIngestionFailure(UUID publicId) {
+        Optional<RegisterStatusResponse> emMemoria = ingestionQueue.findFailure(publicId)
+                .map(f -> failedStatus(publicId, f.register().estagiario(), f.motivo()));
+        if (emMemoria.isPresent()) {
+            return emMemoria;
+        }
+        return ingestionFalhaRepository.findById(publicId)
+                .map(f -> failedStatus(publicId, f.getEstagiario(), f.getMotivo()));
+    }
+
+    private static RegisterStatusResponse failedStatus(UUID publicId, String estagiario, RegisterHorasIngestionFalha.Motivo motivo) {
+        return new RegisterStatusResponse(publicId, estagiario, RegisterStatusResponse.Estado.FALHADO, motivo.getDescricao());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<RegisterResponse> findAllRegisteredHours() {
@@ -127,19 +222,39 @@ public class RegisterHorasServiceImpl implements RegisterHorasService {
     public void DeleteRegisteredHoursUser(UUID publicId) {
         log.info("Deletando registro com ID: {}", publicId);
 
-        RegisterHoras registerHoras = registroHorasRepository.findByPublicId(publicId)
-                .orElseThrow(() -> {
-                    log.error("Registro não encontrado para deletar. ID: {}", publicId);
-                    return new RuntimeException("Registro não encontrado com ID: " + publicId);
-                });
-
-        registroHorasRepository.delete(registerHoras);
+        // DELETE direto por public_id: um único statement, sem carregar a entidade
+        int deleted = registroHorasRepository.deleteByPublicId(publicId);
+        if (deleted == 0) {
+            log.error("Registro não encontrado para deletar. ID: {}", publicId);
+            throw new RuntimeException("Registro não encontrado com ID: " + publicId);
+        }
         log.info("Registro {} deletado com sucesso", publicId);
     }
 
+    @Override
+    public BulkDeleteResponse bulkDelete(BulkDeleteRequest request) {
+        long deleted;
+        if (request.hasPublicIds() && request.hasAnyPeriodCriteria()) {
+            // Não ignorar em silêncio o período: o cliente pode estar à espera de uma interseção
+            throw new IllegalArgumentException("Indique publicIds ou estagiario, dataInicio e dataFim, não ambos");
+        }
+        if (request.hasPublicIds()) {
+            deleted = bulkDeleter.deleteByPublicIds(request.publicIds());
+        } else if (request.hasPeriod()) {
+            if (!request.dataFim().isAfter(request.dataInicio())) {
+                throw new IllegalArgumentException("Data fim deve ser posterior à data início");
+            }
+            deleted = bulkDeleter.deleteByEstagiarioAndPeriod(
+                    request.estagiario().trim().toLowerCase(), request.dataInicio(), request.dataFim());
+        } else {
+            throw new IllegalArgumentException("Indique publicIds ou estagiario, dataInicio e dataFim");
+        }
+        return new BulkDeleteResponse(deleted);
+    }
+
     @Override
     @Transactional
-    public RegisterResponse updateRegister(UUID publicId, RegisterRequest request) {
+    public RegisterResponse updateRegister(UUID publicId, RegisterRequest request, Long expectedVersion) {
         log.info("Atualizando registro com ID: {}", publicId);
 
         // 1. Buscar registro existente
@@ -149,6 +264,15 @@ public class RegisterHorasServiceImpl implements RegisterHorasService {
                     return new RuntimeException("Registro não encontrado com ID: " + publicId);
                 });
 
+        // Concorrência otimista: o cliente editou uma versão que já não é a atual
+        if (expectedVersion != null && !expectedVersion.equals(registerHoras.getVersion())) {
+            log.warn("Conflito de versão no registro {}: esperada {}, atual {}",
+                    publicId, expectedVersion, registerHoras.getVersion());
+            throw new RegisterVersionConflictException(
+                    "Registro " + publicId + " foi alterado por outro utilizador",
+                    requestMapper.mapRegisterResponse(registerHoras));
+        }
+
         // 2. Atualizar campos básicos
         String estagiarioAnterior = registerHoras.getEstagiario();
         updateBasicFields(registerHoras, request);
@@ -159,21 +283,40 @@ public class RegisterHorasServiceImpl implements RegisterHorasService {
             updateEstagiario(registerHoras, request.estagiario());
         }
 
-        if (shouldCalculateHours(request)) {
-            double horasCalculadas = calculateHoursBetween(request.dataInicio(), request.dataFim());
-            // Salvar a representação decimal correta (ex.: 2.5 para 2h30m)
-            registerHoras.setHorasTrabalhadas(horasCalculadas);
-            log.debug("Horas recalculadas: {}", horasCalculadas);
-        } else {
-            registerHoras.setHorasTrabalhadas(request.horasTrabalhadas());
-        }
+        // 4. Validar datas (minutos_trabalhados é recalculado pela base de dados)
+        validateInterval(request.dataInicio(), request.dataFim());
+
         // 5. Salvar alterações
-        RegisterHoras updated = registroHorasRepository.save(registerHoras);
+        // flush imediato: a versão incrementada vai na resposta e conflitos surgem já aqui
+        RegisterHoras updated = registroHorasRepository.saveAndFlush(registerHoras);
         log.info("Registro {} atualizado com sucesso", publicId);
 
         return requestMapper.mapRegisterResponse(updated);
     }
 
+    @Override
+    @Transactional
+    public void patchRegister(UUID publicId, RegisterPatchRequest request, String owner, Long expectedVersion) {
+        log.info("Atualização parcial do registro com ID: {}", publicId);
+        if (request.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum campo para atualizar");
+        }
+
+        int updated = registroHorasRepository.patchByPublicId(
+                publicId,
+                request.descricao(),
+                request.dataInicio(),
+                request.dataFim(),
+                owner == null ? null : owner.trim().toLowerCase(),
+                expectedVersion
+        );
+        if (updated == 1) {
+            log.info("Registro {} atualizado parcialmente", publicId);
+            return;
+        }
+        explainRejectedPatch(publicId, request, owner, expectedVersion);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Map<Integer, Double> getWeeklyHoursForYear(int year, String estagiario) {
@@ -193,18 +336,15 @@ public class RegisterHorasServiceImpl implements RegisterHorasService {
             LocalDateTime start = startDate.atStartOfDay();
             LocalDateTime end = startDate.plusDays(6).atTime(23, 59, 59);
 
-            List<RegisterHoras> registros;
+            // SUM em SQL sobre minutos inteiros: exato e sem carregar os registos
+            long minutos;
             if (estagiario != null && !estagiario.isBlank()) {
-                registros = registroHorasRepository.findByEstagiarioAndDataInicioBetween(estagiario.toLowerCase().trim(), start, end);
+                minutos = registroHorasRepository.sumMinutosByEstagiarioAndDataInicioBetween(estagiario.toLowerCase().trim(), start, end);
             } else {
-                registros = registroHorasRepository.findByDataInicioBetween(start, end);
+                minutos = registroHorasRepository.sumMinutosByDataInicioBetween(start, end);
             }
 
-            double total = registros.stream()
-                    .mapToDouble(RegisterHoras::getHorasTrabalhadas)
-                    .sum();
-
-            result.put(week, total);
+            result.put(week, DuracaoMapper.minutosParaHoras(minutos));
         }
 
         return result;
@@ -218,32 +358,79 @@ public class RegisterHorasServiceImpl implements RegisterHorasService {
             return 0.0;
         }
         String normalized = estagiario.toLowerCase().trim();
-        List<RegisterHoras> registros = registroHorasRepository.findByEstagiario(normalized);
-        return registros.stream()
-                .mapToDouble(RegisterHoras::getHorasTrabalhadas)
-                .sum();
+        return DuracaoMapper.minutosParaHoras(registroHorasRepository.sumMinutosByEstagiario(normalized));
+    }
+
+    // Utilitário para formatar minutos para "H.mm" (ex.: 150 -> "2.30")
+    public static String formatMinutosAsHDotMM(long minutos) {
+        return String.format("%d.%02d", minutos / 60, minutos % 60);
     }
 
     // Utilitário para formatar decimal para "H.mm" (ex.: 2.5 -> "2.30")
     public static String formatHorasAsHDotMM(double horasDecimal) {
-        int horas = (int) Math.floor(horasDecimal);
-        int minutos = (int) Math.round((horasDecimal - horas) * 60.0);
-        if (minutos == 60) {
-            horas += 1;
-            minutos = 0;
-        }
-        return String.format("%d.%02d", horas, minutos);
+        // Arredonda para minutos inteiros antes de formatar (evita "2.60")
+        return formatMinutosAsHDotMM(Math.round(horasDecimal * 60.0));
     }
 
     // ==================== MÉTODOS AUXILIARES ====================
+    /**
+     * Resolve o usuário como referência (proxy) a partir do id em cache,
+     * sem carregar a entidade: só o FK é necessário para gravar o registo.
+     */
     private Usuario getUsuario(String request) {
-        return usuarioRepository.findByUsername(request)
+        return usuarioRepository.getReferenceById(resolveUsuarioId(request));
+    }
+
+    private Long resolveUsuarioId(String request) {
+        return usuarioIdCache.get(request)
+                .or(() -> usuarioRepository.findIdByUsername(request)
+                        .map(found -> {
+                            usuarioIdCache.put(request, found);
+                            return found;
+                        }))
                 .orElseThrow(() -> {
                     log.error("Usuário não encontrado: {}", request);
                     return new RuntimeException("Usuário não encontrado: " + request);
                 });
     }
 
+    /**
+     * O UPDATE não alterou nenhuma linha: carrega o registo (só neste caminho) para indicar o motivo.
+     */
+    private void explainRejectedPatch(UUID publicId, RegisterPatchRequest request, String owner, Long expectedVersion) {
+        RegisterHoras registerHoras = registroHorasRepository.findByPublicId(publicId)
+                .orElseThrow(() -> {
+                    log.error("Registro não encontrado com ID: {}", publicId);
+                    return new RuntimeException("Registro não encontrado com ID: " + publicId);
+                });
+        if (owner != null && !registerHoras.getEstagiario().equals(owner.trim().toLowerCase())) {
+            log.warn("Usuário {} tentou alterar o registro {} de outro estagiário", owner, publicId);
+            throw new AccessDeniedException("Registro não pertence ao usuário " + owner);
+        }
+        if (expectedVersion != null && !expectedVersion.equals(registerHoras.getVersion())) {
+            throw new RegisterVersionConflictException(
+                    "Registro " + publicId + " foi alterado por outro utilizador",
+                    requestMapper.mapRegisterResponse(registerHoras));
+        }
+        LocalDateTime inicio = request.dataInicio() != null ? request.dataInicio() : registerHoras.getDataInicio();
+        LocalDateTime fim = request.dataFim() != null ? request.dataFim() : registerHoras.getDataFim();
+        // Lança a mesma exceção do PUT quando as datas são incoerentes
+        validateInterval(inicio, fim);
+        throw new IllegalStateException("Registro " + publicId + " não foi atualizado");
+    }
+
+    private RegisterResponse toResponse(RegisterHorasIngestionQueue.PendingRegister pendente) {
+        return new RegisterResponse(
+                pendente.publicId(),
+                pendente.estagiario(),
+                pendente.descricao(),
+                pendente.dataInicio(),
+                pendente.dataFim(),
+                DuracaoMapper.minutosParaHoras(pendente.minutosTrabalhados()),
+                0L // versão inicial com que o registo é gravado
+        );
+    }
+
     private void updateEstagiario(RegisterHoras registerHoras, String novoEstagiario) {
         Usuario usuario = getUsuario(novoEstagiario);
 
@@ -256,36 +443,30 @@ public class RegisterHorasServiceImpl implements RegisterHorasService {
         registerHoras.setDescricao(request.descricao());
         registerHoras.setDataInicio(request.dataInicio());
         registerHoras.setDataFim(request.dataFim());
-        registerHoras.setHorasTrabalhadas(request.horasTrabalhadas());
         log.debug("Campos básicos atualizados");
     }
 
     /**
-     * Verifica se deve calcular as horas automaticamente
-     */
-    private boolean shouldCalculateHours(RegisterRequest request) {
-        return request.horasTrabalhadas() <= 0
-                && Objects.nonNull(request.dataInicio())
-                && Objects.nonNull(request.dataFim());
-    }
-
-    /**
-     * Calcula as horas trabalhadas entre duas datas
+     * Valida que a data fim não é anterior à data início
      */
-    private double calculateHoursBetween(LocalDateTime dataInicio, LocalDateTime dataFim) {
+    private void validateInterval(LocalDateTime dataInicio, LocalDateTime dataFim) {
         if (dataFim.isBefore(dataInicio)) {
             log.error("Data fim ({}) é anterior à data início ({})", dataFim, dataInicio);
             throw new RuntimeException("Data fim não pode ser anterior à data início");
         }
-        Duration duration = Duration.between(dataInicio, dataFim);
-        long horasInteiras = duration.toHours();
-        long minutos = duration.toMinutes() % 60;
-        double horas = horasInteiras + (minutos / 60.0);
+    }
+
+    /**
+     * Calcula os minutos inteiros trabalhados entre duas datas (igual à coluna gerada minutos_trabalhados)
+     */
+    private int calculateMinutesBetween(LocalDateTime dataInicio, LocalDateTime dataFim) {
+        validateInterval(dataInicio, dataFim);
+        long minutos = DuracaoMapper.minutosEntre(dataInicio, dataFim);
 
-        if (horas > 24) {
-            log.warn("Horas calculadas excedem 24 horas: {} horas", horas);
+        if (minutos > 24 * 60) {
+            log.warn("Tempo calculado excede 24 horas: {} minutos", minutos);
         }
 
-        return horas;
+        return Math.toIntExact(minutos);
     }
 }
@@ -0,0 +1,51 @@
+package com.registo.horas_estagio.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Cache em memória username → id do usuário.
+ * Permite associar o usuário a um registo de horas com um proxy (getReferenceById)
+ * sem carregar a entidade completa, evitando o SELECT antes de cada INSERT.
+ * <p>
+ * Caffeine com número de entradas limitado: quando cheio, descarta as entradas menos usadas.
+ * Deve ser invalidado sempre que um usuário é criado ou removido.
+ */
+@Component
+public class UsuarioIdCache {
+
+    private final Cache<String, Long> ids;
+
+    public UsuarioIdCache(@Value("${usuario.id-cache.max-entries:10000}") int maxEntries) {
+        this.ids = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxEntries, 0))
+                // Manutenção (limite) na thread do pedido: sem tarefas no ForkJoinPool comum
+                .executor(Runnable::run)
+                .build();
+    }
+
+    public Optional<Long> get(String username) {
+        return Optional.ofNullable(ids.getIfPresent(username));
+    }
+
+    public void put(String username, Long id) {
+        ids.put(username, id);
+    }
+
+    public void evict(String username) {
+        ids.invalidate(username);
+    }
+
+    public void clear() {
+        ids.invalidateAll();
+    }
+
+    public int size() {
+        ids.cleanUp();
+        return (int) ids.estimatedSize();
+    }
+}
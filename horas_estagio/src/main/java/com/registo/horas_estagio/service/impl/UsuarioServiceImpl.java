@@ -14,11 +14,14 @@ public class UsuarioServiceImpl implements UsuarioService {
 
     private final UsuarioRepository usuarioRepository; // Repositório dos usuários.
     private final PasswordEncoder passwordEncoder;     // Para a codificação da senha.
+    private final UsuarioIdCache usuarioIdCache;       // Cache username -> id.
 
     @Override
     public Usuario registrarUsuario(Usuario usuario) {
         usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
-        return usuarioRepository.save(usuario);
+        Usuario saved = usuarioRepository.save(usuario);
+        usuarioIdCache.evict(saved.getUsername());
+        return saved;
     }
 
     @Override
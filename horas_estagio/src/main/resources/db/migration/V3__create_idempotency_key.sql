@@ -0,0 +1,16 @@
+-- Chaves de idempotência para POST /api/registos/add (retries de clientes móveis)
+
+CREATE TABLE public.idempotency_key (
+id int8 GENERATED BY DEFAULT AS IDENTITY( INCREMENT BY 1 MINVALUE 1 MAXVALUE 9223372036854775807 START 1 CACHE 1 NO CYCLE) NOT NULL,
+estagiario varchar(255) NOT NULL,
+idempotency_key varchar(255) NOT NULL,
+request_hash varchar(64) NOT NULL,
+response_body text NOT NULL,
+created_at timestamptz(6) NOT NULL,
+expires_at timestamptz(6) NOT NULL,
+CONSTRAINT idempotency_key_pkey PRIMARY KEY (id),
+CONSTRAINT uk_idempotency_key_estagiario_key UNIQUE (estagiario, idempotency_key)
+);
+
+-- Limpeza periódica das chaves expiradas
+CREATE INDEX idx_idempotency_key_expires_at ON public.idempotency_key (expires_at);
@@ -0,0 +1,2 @@
+-- Versão para controlo de concorrência otimista (@Version em RegisterHoras)
+ALTER TABLE public.register_horas ADD COLUMN version int8 NOT NULL DEFAULT 0;
@@ -0,0 +1,61 @@
+-- Impede registos sobrepostos do mesmo usuário: a verificação é uma sonda no índice GiST no INSERT/UPDATE.
+-- Registos já sobrepostos são movidos para register_horas_sobreposicao antes de criar a restrição;
+-- por usuário mantém-se o registo mais antigo (menor id) e os que o sobrepõem vão para quarentena.
+
+-- Necessário para usar "=" sobre int8 num índice GiST
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Quarentena: mesmas colunas de register_horas, mais o registo com que cada linha colidia
+CREATE TABLE public.register_horas_sobreposicao (
+    LIKE public.register_horas INCLUDING DEFAULTS,
+    conflito_com_id int8 NOT NULL,
+    movido_em timestamptz(6) NOT NULL DEFAULT now(),
+    CONSTRAINT register_horas_sobreposicao_pkey PRIMARY KEY (id)
+);
+
+DO $$
+DECLARE
+    registo record;
+    conflito record;
+    movidos int := 0;
+BEGIN
+    -- Por ordem de id: cada registo só é comparado com os que ficaram (os anteriores em conflito já saíram)
+    FOR registo IN SELECT * FROM public.register_horas ORDER BY id LOOP
+        SELECT r.id, r.data_inicio, r.data_fim INTO conflito
+        FROM public.register_horas r
+        WHERE r.usuario_id = registo.usuario_id
+          AND r.id < registo.id
+          AND tsrange(r.data_inicio, r.data_fim, '[)') && tsrange(registo.data_inicio, registo.data_fim, '[)')
+        ORDER BY r.id
+        LIMIT 1;
+
+        IF FOUND THEN
+            RAISE NOTICE 'V5: usuario_id % - registo % [%, %) sobrepõe o registo % [%, %); movido para register_horas_sobreposicao',
+                registo.usuario_id, registo.id, registo.data_inicio, registo.data_fim,
+                conflito.id, conflito.data_inicio, conflito.data_fim;
+
+            INSERT INTO public.register_horas_sobreposicao
+                (id, data_fim, data_inicio, descricao, estagiario, horas_trabalhadas, public_id, usuario_id,
+                 valor_new, version, conflito_com_id)
+            VALUES
+                (registo.id, registo.data_fim, registo.data_inicio, registo.descricao, registo.estagiario,
+                 registo.horas_trabalhadas, registo.public_id, registo.usuario_id,
+                 registo.valor_new, registo.version, conflito.id);
+
+            DELETE FROM public.register_horas WHERE id = registo.id;
+            movidos := movidos + 1;
+        END IF;
+    END LOOP;
+
+    IF movidos > 0 THEN
+        RAISE NOTICE 'V5: % registo(s) sobreposto(s) movido(s) para register_horas_sobreposicao', movidos;
+    END IF;
+END $$;
+
+-- Intervalo [data_inicio, data_fim) calculado pela base de dados
+ALTER TABLE public.register_horas
+    ADD COLUMN periodo tsrange GENERATED ALWAYS AS (tsrange(data_inicio, data_fim, '[)')) STORED;
+
+ALTER TABLE public.register_horas
+    ADD CONSTRAINT register_horas_sem_sobreposicao
+    EXCLUDE USING gist (usuario_id WITH =, periodo WITH &&);
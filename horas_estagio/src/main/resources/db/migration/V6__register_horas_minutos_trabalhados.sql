@@ -0,0 +1,11 @@
+-- Tempo trabalhado em minutos inteiros (em vez de horas float8): somas exatas em bigint
+
+ALTER TABLE public.register_horas ADD COLUMN minutos_trabalhados int4;
+
+-- Backfill a partir das horas decimais existentes
+UPDATE public.register_horas SET minutos_trabalhados = ROUND(horas_trabalhadas * 60)::int4;
+
+ALTER TABLE public.register_horas ALTER COLUMN minutos_trabalhados SET NOT NULL;
+ALTER TABLE public.register_horas ALTER COLUMN minutos_trabalhados SET DEFAULT 0;
+
+ALTER TABLE public.register_horas DROP COLUMN horas_trabalhadas;
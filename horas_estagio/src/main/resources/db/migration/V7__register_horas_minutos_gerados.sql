@@ -0,0 +1,39 @@
+-- minutos_trabalhados passa a ser derivado do intervalo (coluna gerada STORED):
+-- não pode divergir de data_fim - data_inicio e as agregações leem uma só coluna int4.
+-- Os valores existentes são recalculados a partir das datas.
+
+-- Cópia dos minutos introduzidos pelos usuários antes do recálculo (ex.: 8h declaradas num 09:00-18:00 com almoço).
+-- Só fica preenchida para registos anteriores a esta migration; os novos têm NULL.
+ALTER TABLE public.register_horas ADD COLUMN minutos_declarados int4;
+
+UPDATE public.register_horas SET minutos_declarados = minutos_trabalhados;
+
+COMMENT ON COLUMN public.register_horas.minutos_declarados IS
+    'Minutos declarados antes da V7; diferem de minutos_trabalhados quando o valor foi recalculado a partir das datas';
+
+-- Relatório no log do Flyway dos registos cujo valor vai mudar
+DO $$
+DECLARE
+    r record;
+    alterados int := 0;
+BEGIN
+    FOR r IN
+        SELECT public_id, estagiario, data_inicio, data_fim, minutos_trabalhados AS declarados,
+               FLOOR(EXTRACT(EPOCH FROM (data_fim - data_inicio)) / 60)::int4 AS calculados
+        FROM public.register_horas
+        WHERE minutos_trabalhados <> FLOOR(EXTRACT(EPOCH FROM (data_fim - data_inicio)) / 60)::int4
+        ORDER BY estagiario, data_inicio
+    LOOP
+        alterados := alterados + 1;
+        RAISE NOTICE 'Registo % (%: % a %): % minutos declarados -> % calculados',
+            r.public_id, r.estagiario, r.data_inicio, r.data_fim, r.declarados, r.calculados;
+    END LOOP;
+    RAISE NOTICE '% registos com minutos_trabalhados recalculados (valor original em minutos_declarados)', alterados;
+END $$;
+
+ALTER TABLE public.register_horas DROP COLUMN minutos_trabalhados;
+
+ALTER TABLE public.register_horas
+    ADD COLUMN minutos_trabalhados int4 GENERATED ALWAYS AS (
+        FLOOR(EXTRACT(EPOCH FROM (data_fim - data_inicio)) / 60)::int4
+    ) STORED;
@@ -0,0 +1,17 @@
+-- Dead-letter da ingestão assíncrona: registos aceites com 202 que não foi possível gravar.
+-- Guarda o pedido completo (para reprocessamento manual) e o motivo devolvido em GET /api/registos/{publicId}/estado.
+
+CREATE TABLE public.register_horas_ingestion_falha (
+public_id uuid NOT NULL,
+estagiario varchar(255) NOT NULL,
+descricao varchar(255) NOT NULL,
+data_inicio timestamp(6) NOT NULL,
+data_fim timestamp(6) NOT NULL,
+usuario_id int8 NOT NULL,
+motivo varchar(32) NOT NULL,
+detalhe text NULL,
+failed_at timestamptz(6) NOT NULL,
+CONSTRAINT register_horas_ingestion_falha_pkey PRIMARY KEY (public_id)
+);
+
+CREATE INDEX idx_register_horas_ingestion_falha_estagiario ON public.register_horas_ingestion_falha (estagiario);
@@ -0,0 +1,164 @@
+package com.registo.horas_estagio.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.registo.horas_estagio.HorasstagedApplication;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de carga reprodutível: o mesmo endpoint (JWT + consulta JDBC) com o Tomcat em
+ * platform threads (configuração por omissão) e com o perfil virtual-threads, sobre H2 em memória.
+ * <p>
+ * Excluído do build normal; executar com {@code mvn test -Pbenchmark}.
+ * Parâmetros: -Dbenchmark.clients (1000) e -Dbenchmark.requests-per-client (20).
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark de carga: platform threads vs virtual threads")
+class VirtualThreadsLoadBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsLoadBenchmarkTest.class);
+
+    private static final int CLIENTES = Integer.getInteger("benchmark.clients", 1000);
+    private static final int PEDIDOS_POR_CLIENTE = Integer.getInteger("benchmark.requests-per-client", 20);
+    private static final int AQUECIMENTO_POR_CLIENTE = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Deve comparar throughput e p99 com clientes concorrentes")
+    void shouldCompareThroughputAndP99() throws Exception {
+        // When
+        Resultado platform = executar("platform", false);
+        Resultado virtual = executar("virtual", true);
+
+        // Then
+        log.info(String.format("%-10s %10s %14s %10s %10s %8s", "modo", "clientes", "pedidos/s", "p50 (ms)", "p99 (ms)", "erros"));
+        for (Resultado r : new Resultado[]{platform, virtual}) {
+            log.info(String.format("%-10s %10d %14.1f %10.1f %10.1f %8d",
+                    r.modo(), CLIENTES, r.throughput(), r.p50Millis(), r.p99Millis(), r.erros()));
+        }
+        assertThat(platform.erros()).isZero();
+        assertThat(virtual.erros()).isZero();
+    }
+
+    private Resultado executar(String modo, boolean virtualThreads) throws Exception {
+        String[] profiles = virtualThreads ? new String[]{"test", "virtual-threads"} : new String[]{"test"};
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(HorasstagedApplication.class)
+                .profiles(profiles)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + modo + ";DB_CLOSE_DELAY=-1",
+                        "spring.flyway.enabled=false",
+                        "spring.jpa.show-sql=false",
+                        "LOG_PATH=target/benchmark-logs",
+                        "logging.level.root=WARN",
+                        "logging.level.org.springframework.security=WARN",
+                        "logging.level.com.registo.horas_estagio=WARN")
+                .run();
+             ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient http = HttpClient.newBuilder()
+                    .executor(clientes)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            String token = registarUtilizador(http, baseUrl);
+            HttpRequest pedido = HttpRequest.newBuilder(URI.create(baseUrl + "/api/registos/total-hours?user=bench"))
+                    .header("Authorization", "Bearer " + token)
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+
+            carga(http, pedido, clientes, AQUECIMENTO_POR_CLIENTE);
+            return carga(http, pedido, clientes, PEDIDOS_POR_CLIENTE).comModo(modo);
+        }
+    }
+
+    private String registarUtilizador(HttpClient http, String baseUrl) throws Exception {
+        HttpRequest registo = HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/registar"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"username\":\"bench\",\"password\":\"benchmark123\",\"role\":\"ADMIN\"}"))
+                .build();
+        HttpResponse<String> response = http.send(registo, HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonNode body = objectMapper.readTree(response.body());
+        return body.get("token").asText();
+    }
+
+    private Resultado carga(HttpClient http, HttpRequest pedido, ExecutorService clientes, int pedidosPorCliente)
+            throws InterruptedException {
+        long[] latencias = new long[CLIENTES * pedidosPorCliente];
+        AtomicInteger erros = new AtomicInteger();
+        CountDownLatch partida = new CountDownLatch(1);
+        CountDownLatch fim = new CountDownLatch(CLIENTES);
+
+        for (int c = 0; c < CLIENTES; c++) {
+            int cliente = c;
+            clientes.execute(() -> {
+                try {
+                    partida.await();
+                    for (int i = 0; i < pedidosPorCliente; i++) {
+                        long inicio = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = http.send(pedido, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                erros.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            erros.incrementAndGet();
+                        }
+                        latencias[cliente * pedidosPorCliente + i] = System.nanoTime() - inicio;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    fim.countDown();
+                }
+            });
+        }
+
+        long inicio = System.nanoTime();
+        partida.countDown();
+        fim.await();
+        long duracao = System.nanoTime() - inicio;
+
+        Arrays.sort(latencias);
+        return new Resultado(
+                null,
+                latencias.length / (duracao / 1_000_000_000.0),
+                percentil(latencias, 0.50) / 1_000_000.0,
+                percentil(latencias, 0.99) / 1_000_000.0,
+                erros.get());
+    }
+
+    private static long percentil(long[] ordenadas, double p) {
+        int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)];
+    }
+
+    private record Resultado(String modo, double throughput, double p50Millis, double p99Millis, int erros) {
+        Resultado comModo(String modo) {
+            return new Resultado(modo, throughput, p50Millis, p99Millis, erros);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.registo.horas_estagio.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Testes do encaminhamento para a réplica de leitura")
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaLagMonitor lagMonitor;
+    private JdbcTemplate routedJdbc;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        // Duas bases H2 independentes, cada uma identifica-se pela tabela origem
+        DataSource primary = h2("primario");
+        DataSource replica = h2("replica");
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("CREATE TABLE replica_lag (segundos DOUBLE)");
+        replicaJdbc.update("INSERT INTO replica_lag VALUES (0)");
+
+        lagMonitor = new ReplicaLagMonitor(replicaJdbc, "SELECT segundos FROM replica_lag",
+                Duration.ofSeconds(5), new SimpleMeterRegistry());
+        lagMonitor.refresh();
+
+        DataSource routed = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica, lagMonitor));
+        routedJdbc = new JdbcTemplate(routed);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routed);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Test
+    @DisplayName("Transação readOnly deve ler da réplica")
+    void shouldRouteReadOnlyTransactionToReplica() {
+        // When
+        String origem = readOnlyTransaction.execute(status -> origem());
+
+        // Then
+        assertThat(origem).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Transação de escrita deve usar o primário")
+    void shouldRouteWriteTransactionToPrimary() {
+        // When
+        writeTransaction.executeWithoutResult(status -> routedJdbc.update("UPDATE origem SET escritas = escritas + 1"));
+
+        // Then
+        assertThat(primaryJdbc.queryForObject("SELECT escritas FROM origem", Integer.class)).isEqualTo(1);
+        assertThat(replicaJdbc.queryForObject("SELECT escritas FROM origem", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Sem transação deve usar o primário")
+    void shouldUsePrimaryOutsideTransactions() {
+        assertThat(origem()).isEqualTo("primario");
+    }
+
+    @Test
+    @DisplayName("Réplica atrasada deve devolver as leituras ao primário até recuperar")
+    void shouldFallBackToPrimaryWhenReplicaLags() {
+        // Given
+        replicaJdbc.update("UPDATE replica_lag SET segundos = 30");
+        lagMonitor.refresh();
+
+        // When
+        String durante = readOnlyTransaction.execute(status -> origem());
+        replicaJdbc.update("UPDATE replica_lag SET segundos = 1");
+        lagMonitor.refresh();
+        String depois = readOnlyTransaction.execute(status -> origem());
+
+        // Then
+        assertThat(durante).isEqualTo("primario");
+        assertThat(depois).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Falha ao medir o atraso deve tornar a réplica indisponível")
+    void shouldFallBackToPrimaryWhenLagQueryFails() {
+        // Given
+        replicaJdbc.execute("DROP TABLE replica_lag");
+
+        // When
+        lagMonitor.refresh();
+
+        // Then
+        assertThat(lagMonitor.isReplicaUsable()).isFalse();
+        assertThat(readOnlyTransaction.execute(status -> origem())).isEqualTo("primario");
+    }
+
+    private String origem() {
+        return routedJdbc.queryForObject("SELECT nome FROM origem", String.class);
+    }
+
+    private static DataSource h2(String nome) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + nome + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE origem (nome VARCHAR(20), escritas INT)");
+        jdbc.update("INSERT INTO origem VALUES (?, 0)", nome);
+        return dataSource;
+    }
+}
@@ -0,0 +1,137 @@
+package com.registo.horas_estagio.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mesmo encaminhamento que em produção: JpaTransactionManager (Hibernate) e @Transactional(readOnly = true).
+ * O Hibernate pede a ligação no início da transação, antes de a flag readOnly estar sincronizada;
+ * o LazyConnectionDataSourceProxy adia a escolha do pool até ao primeiro statement.
+ */
+@SpringJUnitConfig(ReplicaRoutingJpaTransactionTest.Config.class)
+@DisplayName("Encaminhamento para a réplica com JpaTransactionManager")
+class ReplicaRoutingJpaTransactionTest {
+
+    @Autowired
+    private OrigemReader origemReader;
+
+    @Test
+    @DisplayName("@Transactional(readOnly = true) deve ler da réplica")
+    void shouldRouteReadOnlyJpaTransactionToReplica() {
+        assertThat(origemReader.lerSomenteLeitura()).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("@Transactional de escrita deve usar o primário")
+    void shouldRouteWriteJpaTransactionToPrimary() {
+        assertThat(origemReader.lerEmTransacaoDeEscrita()).isEqualTo("primario");
+    }
+
+    static class OrigemReader {
+
+        @PersistenceContext
+        private EntityManager entityManager;
+
+        @Transactional(readOnly = true)
+        public String lerSomenteLeitura() {
+            return origem();
+        }
+
+        @Transactional
+        public String lerEmTransacaoDeEscrita() {
+            return origem();
+        }
+
+        private String origem() {
+            return (String) entityManager.createNativeQuery("SELECT nome FROM origem").getSingleResult();
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableTransactionManagement
+    static class Config {
+
+        @Bean
+        DataSource primaryDataSource() {
+            return h2("primario");
+        }
+
+        @Bean
+        DataSource replicaDataSource() {
+            DataSource replica = h2("replica");
+            JdbcTemplate jdbc = new JdbcTemplate(replica);
+            jdbc.execute("CREATE TABLE replica_lag (segundos DOUBLE)");
+            jdbc.update("INSERT INTO replica_lag VALUES (0)");
+            return replica;
+        }
+
+        @Bean
+        ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource) {
+            ReplicaLagMonitor monitor = new ReplicaLagMonitor(new JdbcTemplate(replicaDataSource),
+                    "SELECT segundos FROM replica_lag", Duration.ofSeconds(5), new SimpleMeterRegistry());
+            monitor.refresh();
+            return monitor;
+        }
+
+        @Bean
+        @Primary
+        DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                              @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                              ReplicaLagMonitor replicaLagMonitor) {
+            return new LazyConnectionDataSourceProxy(
+                    new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor));
+        }
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+            factory.setDataSource(dataSource);
+            // Mesmo adapter do Spring Boot (prepareConnection: readOnly aplicado à ligação JDBC)
+            factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            factory.setPackagesToScan(ReplicaRoutingJpaTransactionTest.class.getPackageName());
+            return factory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+
+        @Bean
+        OrigemReader origemReader() {
+            return new OrigemReader();
+        }
+
+        private static DataSource h2(String nome) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:jpa-" + nome + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.execute("CREATE TABLE origem (nome VARCHAR(20))");
+            jdbc.update("INSERT INTO origem VALUES (?)", nome);
+            return dataSource;
+        }
+    }
+}
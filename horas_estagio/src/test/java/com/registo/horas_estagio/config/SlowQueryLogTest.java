@@ -0,0 +1,110 @@
+package com.registo.horas_estagio.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Testes da captura de queries lentas")
+class SlowQueryLogTest {
+
+    private HikariDataSource hikari;
+
+    @AfterEach
+    void tearDown() {
+        if (hikari != null) {
+            hikari.close();
+        }
+    }
+
+    @Test
+    @DisplayName("SQL deve ser normalizado sem literais")
+    void shouldNormalizeSql() {
+        // When
+        String normalized = SlowQueryLog.normalize("""
+                select * from register_horas
+                where estagiario = 'neto' and id in (?, ?, ?) and version > 10
+                """);
+
+        // Then
+        assertThat(normalized).isEqualTo("select * from register_horas where estagiario = ? and id in (?...) and version > ?");
+    }
+
+    @Test
+    @DisplayName("Buffer deve manter apenas as queries mais recentes")
+    void shouldKeepOnlyMostRecentQueries() {
+        // Given
+        SlowQueryLog slowQueryLog = new SlowQueryLog(new SimpleMeterRegistry(), Duration.ofMillis(100), 2);
+
+        // When
+        slowQueryLog.record("select 1", 150, 1);
+        slowQueryLog.record("select 2", 200, 1);
+        slowQueryLog.record("select 3", 250, 1);
+
+        // Then
+        List<SlowQueryLog.SlowQuery> queries = slowQueryLog.snapshot();
+        assertThat(queries).extracting(SlowQueryLog.SlowQuery::durationMillis).containsExactly(250L, 200L);
+        assertThat(queries.getFirst().callSite()).startsWith("config.SlowQueryLogTest.shouldKeepOnlyMostRecentQueries");
+    }
+
+    @Test
+    @DisplayName("Capacidade inferior a 1 deve ser rejeitada no arranque")
+    void shouldRejectCapacityBelowOne() {
+        assertThatThrownBy(() -> new SlowQueryLog(new SimpleMeterRegistry(), Duration.ofMillis(100), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("registos.slow-query.capacity");
+    }
+
+    @Test
+    @DisplayName("Queries executadas no pool devem ser capturadas acima do limite")
+    void shouldCaptureQueriesThroughPool() {
+        // Given
+        SlowQueryLog slowQueryLog = new SlowQueryLog(new SimpleMeterRegistry(), Duration.ZERO, 10);
+        DataSource dataSource = wrap(slowQueryLog);
+
+        // When
+        Integer resultado = new JdbcTemplate(dataSource).queryForObject("SELECT 41 + 1", Integer.class);
+
+        // Then
+        assertThat(resultado).isEqualTo(42);
+        assertThat(slowQueryLog.snapshot())
+                .singleElement()
+                .extracting(SlowQueryLog.SlowQuery::sql)
+                .isEqualTo("SELECT ? + ?");
+    }
+
+    @Test
+    @DisplayName("Queries abaixo do limite não devem ser capturadas")
+    void shouldIgnoreFastQueries() {
+        // Given
+        SlowQueryLog slowQueryLog = new SlowQueryLog(new SimpleMeterRegistry(), Duration.ofMinutes(1), 10);
+        DataSource dataSource = wrap(slowQueryLog);
+
+        // When
+        new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class);
+
+        // Then
+        assertThat(slowQueryLog.snapshot()).isEmpty();
+    }
+
+    private DataSource wrap(SlowQueryLog slowQueryLog) {
+        hikari = new HikariDataSource();
+        hikari.setJdbcUrl("jdbc:h2:mem:slowqueries;DB_CLOSE_DELAY=-1");
+        hikari.setUsername("sa");
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("slowQueryLog", slowQueryLog));
+        SlowQueryDataSourcePostProcessor postProcessor =
+                new SlowQueryDataSourcePostProcessor(beanFactory.getBeanProvider(SlowQueryLog.class), true);
+        return (DataSource) postProcessor.postProcessAfterInitialization(hikari, "dataSource");
+    }
+}
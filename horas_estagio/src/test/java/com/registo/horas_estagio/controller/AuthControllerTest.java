@@ -0,0 +1,101 @@
+package com.registo.horas_estagio.controller;
+
+import com.registo.horas_estagio.dto.request.LoginRequest;
+import com.registo.horas_estagio.mapper.RequestMapper;
+import com.registo.horas_estagio.models.JwtToken;
+import com.registo.horas_estagio.security.JwtTokenUtil;
+import com.registo.horas_estagio.security.LoginRateLimiter;
+import com.registo.horas_estagio.service.JwtTokenService;
+import com.registo.horas_estagio.service.UsuarioService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes Unitários do AuthController")
+class AuthControllerTest {
+
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Mock
+    private UsuarioService usuarioService;
+
+    @Mock
+    private RequestMapper requestMapper;
+
+    @Mock
+    private JwtTokenService jwtTokenService;
+
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuthController controller;
+    private LoginRequest loginRequest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        controller = new AuthController(authenticationManager, jwtTokenUtil, usuarioService,
+                requestMapper, jwtTokenService, loginRateLimiter, meterRegistry);
+        loginRequest = new LoginRequest("neto", "password123");
+        when(loginRateLimiter.tryAcquire(anyString(), any())).thenReturn(true);
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken("neto", null, List.of()));
+    }
+
+    @Test
+    @DisplayName("Login com token ativo deve contar como reutilizado")
+    void shouldCountReusedToken() {
+        // Given
+        JwtToken existente = new JwtToken();
+        existente.setToken("token-existente");
+        when(jwtTokenService.getReusableTokenForUser("neto")).thenReturn(Optional.of(existente));
+
+        // When
+        ResponseEntity<?> response = controller.login(loginRequest, new MockHttpServletRequest());
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.counter("auth.login.tokens", "result", "reused").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("auth.login.tokens", "result", "issued").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Login sem token ativo deve contar como emitido")
+    void shouldCountIssuedToken() {
+        // Given
+        when(jwtTokenService.getReusableTokenForUser("neto")).thenReturn(Optional.empty());
+        when(jwtTokenUtil.generateToken("neto")).thenReturn("token-novo");
+        when(jwtTokenUtil.getExpirationMillis()).thenReturn(86_400_000L);
+
+        // When
+        ResponseEntity<?> response = controller.login(loginRequest, new MockHttpServletRequest());
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(meterRegistry.counter("auth.login.tokens", "result", "issued").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("auth.login.tokens", "result", "reused").count()).isZero();
+    }
+}
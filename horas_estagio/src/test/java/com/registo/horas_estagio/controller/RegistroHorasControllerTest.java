@@ -1,8 +1,12 @@
 package com.registo.horas_estagio.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.registo.horas_estagio.dto.request.RegisterPatchRequest;
 import com.registo.horas_estagio.dto.request.RegisterRequest;
 import com.registo.horas_estagio.dto.response.PageResponse;
 import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.exception.RegisterVersionConflictException;
+import com.registo.horas_estagio.service.IdempotencyKeyService;
 import com.registo.horas_estagio.service.RegisterHorasService;
 import com.registo.horas_estagio.util.ObjectUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,10 +16,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -23,6 +31,7 @@ import java.util.Objects;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -34,6 +43,9 @@ class RegistroHorasControllerUnitTest {
     @Mock
     private RegisterHorasService registerHorasService;
 
+    @Mock
+    private IdempotencyKeyService idempotencyKeyService;
+
     @InjectMocks
     private RegistroHorasController controller;
 
@@ -95,7 +107,8 @@ class RegistroHorasControllerUnitTest {
                 "Outra tarefa",
                 LocalDateTime.now(),
                 LocalDateTime.now().plusHours(5),
-                5
+                5,
+                0L
         );
         List<RegisterResponse> expectedList = List.of(registerResponse, response2);
         when(registerHorasService.findAllRegisteredHours()).thenReturn(expectedList);
@@ -347,7 +360,7 @@ class RegistroHorasControllerUnitTest {
                 .thenReturn(registerResponse);
 
         // When
-        ResponseEntity<RegisterResponse> response = controller.addRegisterHoras(registerRequest);
+        ResponseEntity<RegisterResponse> response = controller.addRegisterHoras(registerRequest, null);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
@@ -375,13 +388,14 @@ class RegistroHorasControllerUnitTest {
                 "Tarefa",
                 LocalDateTime.now(),
                 LocalDateTime.now().plusHours(1),
-                1
+                1,
+                0L
         );
         when(registerHorasService.submitHours(any(RegisterRequest.class)))
                 .thenReturn(minimalResponse);
 
         // When
-        ResponseEntity<RegisterResponse> response = controller.addRegisterHoras(minimalRequest);
+        ResponseEntity<RegisterResponse> response = controller.addRegisterHoras(minimalRequest, null);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
@@ -391,6 +405,55 @@ class RegistroHorasControllerUnitTest {
         verify(registerHorasService).submitHours(minimalRequest);
     }
 
+    @Test
+    @DisplayName("Deve delegar no serviço de idempotência quando há Idempotency-Key")
+    void shouldUseIdempotencyServiceWhenKeyPresent() {
+        // Given
+        when(idempotencyKeyService.submitOnce(eq("chave-1"), eq(registerRequest), any()))
+                .thenReturn(registerResponse);
+
+        // When
+        ResponseEntity<RegisterResponse> response = controller.addRegisterHoras(registerRequest, "chave-1");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody()).isEqualTo(registerResponse);
+
+        verify(idempotencyKeyService).submitOnce(eq("chave-1"), eq(registerRequest), any());
+        verify(registerHorasService, never()).submitHours(any());
+    }
+
+    @Test
+    @DisplayName("Deve aceitar registro assíncrono com 202")
+    void shouldAcceptAsyncRegister() {
+        // Given
+        when(registerHorasService.isAsyncIngestionEnabled()).thenReturn(true);
+        when(registerHorasService.submitHoursAsync(registerRequest)).thenReturn(registerResponse);
+
+        // When
+        ResponseEntity<RegisterResponse> response = controller.addRegisterHorasAsync(registerRequest);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(response.getHeaders().getLocation()).hasToString("/api/registos/" + registerResponse.publicId());
+        verify(registerHorasService, never()).submitHours(any());
+    }
+
+    @Test
+    @DisplayName("Deve gravar de forma síncrona quando a ingestão assíncrona está desativada")
+    void shouldFallbackToSyncWhenAsyncDisabled() {
+        // Given
+        when(registerHorasService.isAsyncIngestionEnabled()).thenReturn(false);
+        when(registerHorasService.submitHours(registerRequest)).thenReturn(registerResponse);
+
+        // When
+        ResponseEntity<RegisterResponse> response = controller.addRegisterHorasAsync(registerRequest);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        verify(registerHorasService, never()).submitHoursAsync(any());
+    }
+
     // ==================== TESTES PUT /api/registos/update/{uuid} ====================
 
     @Test
@@ -403,14 +466,15 @@ class RegistroHorasControllerUnitTest {
                 "Descrição atualizada",
                 LocalDateTime.now(),
                 LocalDateTime.now().plusHours(8),
-                8
+                8,
+                0L
         );
-        when(registerHorasService.updateRegister(eq(testUuid), any(RegisterRequest.class)))
+        when(registerHorasService.updateRegister(eq(testUuid), any(RegisterRequest.class), isNull()))
                 .thenReturn(updatedResponse);
 
         // When
         ResponseEntity<RegisterResponse> response =
-                controller.updateRegister(testUuid, registerRequest);
+                controller.updateRegister(testUuid, registerRequest, null);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -418,7 +482,7 @@ class RegistroHorasControllerUnitTest {
         assertThat(response.getBody().publicId()).isEqualTo(testUuid);
         assertThat(response.getBody().descricao()).isEqualTo("Descrição atualizada");
 
-        verify(registerHorasService).updateRegister(testUuid, registerRequest);
+        verify(registerHorasService).updateRegister(testUuid, registerRequest, null);
     }
 
     @Test
@@ -442,15 +506,16 @@ class RegistroHorasControllerUnitTest {
                 "Nova descrição completa",
                 novaDataInicio,
                 novaDataFim,
-                8
+                8,
+                0L
         );
 
-        when(registerHorasService.updateRegister(eq(testUuid), any(RegisterRequest.class)))
+        when(registerHorasService.updateRegister(eq(testUuid), any(RegisterRequest.class), isNull()))
                 .thenReturn(updatedResponse);
 
         // When
         ResponseEntity<RegisterResponse> response =
-                controller.updateRegister(testUuid, updateRequest);
+                controller.updateRegister(testUuid, updateRequest, null);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -459,7 +524,83 @@ class RegistroHorasControllerUnitTest {
         assertThat(response.getBody().descricao()).isEqualTo("Nova descrição completa");
         assertThat(response.getBody().horasTrabalhadas()).isEqualTo(8);
 
-        verify(registerHorasService).updateRegister(testUuid, updateRequest);
+        verify(registerHorasService).updateRegister(testUuid, updateRequest, null);
+    }
+
+    @Test
+    @DisplayName("Deve passar a versão do If-Match ao serviço e devolver ETag")
+    void shouldPassIfMatchVersionToService() {
+        // Given
+        when(registerHorasService.updateRegister(testUuid, registerRequest, 3L)).thenReturn(registerResponse);
+
+        // When
+        ResponseEntity<RegisterResponse> response = controller.updateRegister(testUuid, registerRequest, "W/\"3\"");
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"0\"");
+        verify(registerHorasService).updateRegister(testUuid, registerRequest, 3L);
+    }
+
+    @Test
+    @DisplayName("Deve devolver conflito com o estado atual quando o commit falha por versão")
+    void shouldReturnConflictOnOptimisticLockFailure() {
+        // Given
+        when(registerHorasService.updateRegister(testUuid, registerRequest, null))
+                .thenThrow(new OptimisticLockingFailureException("versão desatualizada"));
+        when(registerHorasService.findRegisteredHours(testUuid)).thenReturn(registerResponse);
+
+        // When & Then
+        assertThatThrownBy(() -> controller.updateRegister(testUuid, registerRequest, null))
+                .isInstanceOf(RegisterVersionConflictException.class)
+                .satisfies(e -> assertThat(((RegisterVersionConflictException) e).getCurrent()).isEqualTo(registerResponse));
+    }
+
+    @Test
+    @DisplayName("PATCH de ESTAGIARIO deve restringir o UPDATE ao próprio usuário")
+    void shouldPatchRestrictedToOwnerForEstagiario() {
+        // Given
+        RegisterPatchRequest patch = new RegisterPatchRequest("Nova descrição", null, null);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                "neto", null, List.of(new SimpleGrantedAuthority("ROLE_ESTAGIARIO")));
+
+        // When
+        ResponseEntity<Void> response = controller.patchRegister(testUuid, patch, "\"2\"", authentication);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        verify(registerHorasService).patchRegister(testUuid, patch, "neto", 2L);
+    }
+
+    @Test
+    @DisplayName("PATCH de ADMIN não deve restringir o usuário")
+    void shouldPatchWithoutOwnerForAdmin() {
+        // Given
+        RegisterPatchRequest patch = new RegisterPatchRequest("Nova descrição", null, null);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        // When
+        controller.patchRegister(testUuid, patch, null, authentication);
+
+        // Then
+        verify(registerHorasService).patchRegister(testUuid, patch, null, null);
+    }
+
+    @Test
+    @DisplayName("PATCH de clientes antigos com horasTrabalhadas deve ser aceite e ignorar o campo")
+    void shouldIgnoreLegacyHorasTrabalhadasOnPatch() throws Exception {
+        // Given
+        String json = """
+                {"descricao": "Nova descrição", "horasTrabalhadas": 8.5}
+                """;
+
+        // When
+        RegisterPatchRequest patch = new ObjectMapper().findAndRegisterModules()
+                .readValue(json, RegisterPatchRequest.class);
+
+        // Then
+        assertThat(patch).isEqualTo(new RegisterPatchRequest("Nova descrição", null, null));
     }
 
     // ==================== TESTES DELETE /api/registos/delete/{publicId} ====================
@@ -582,14 +723,15 @@ class RegistroHorasControllerUnitTest {
                 "Tarefa",
                 LocalDateTime.now(),
                 LocalDateTime.now().plusHours(5),
-                5
+                5,
+                0L
         );
 
         when(registerHorasService.submitHours(any(RegisterRequest.class)))
                 .thenReturn(responseWithUuid);
 
         // When
-        ResponseEntity<RegisterResponse> response = controller.addRegisterHoras(requestWithUuid);
+        ResponseEntity<RegisterResponse> response = controller.addRegisterHoras(requestWithUuid, null);
 
         // Then
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
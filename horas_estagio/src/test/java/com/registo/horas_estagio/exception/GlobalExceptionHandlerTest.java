@@ -0,0 +1,48 @@
+package com.registo.horas_estagio.exception;
+
+import com.registo.horas_estagio.dto.response.ErrorResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Testes do GlobalExceptionHandler")
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    @DisplayName("Violação da restrição de exclusão deve devolver 409")
+    void shouldMapExclusionViolationToConflict() {
+        // Given
+        SQLException sqlException = new SQLException(
+                "conflicting key value violates exclusion constraint \"register_horas_sem_sobreposicao\"", "23P01");
+        DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute statement", sqlException);
+
+        // When
+        ResponseEntity<ErrorResponse> response = handler.handleDataIntegrityViolationException(e);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().message()).contains("sobrepõe");
+    }
+
+    @Test
+    @DisplayName("Outras violações de integridade devem continuar a devolver 400")
+    void shouldMapOtherViolationsToBadRequest() {
+        // Given
+        SQLException sqlException = new SQLException("null value in column \"descricao\"", "23502");
+        DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute statement", sqlException);
+
+        // When
+        ResponseEntity<ErrorResponse> response = handler.handleDataIntegrityViolationException(e);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,87 @@
+package com.registo.horas_estagio.integration;
+
+import com.registo.horas_estagio.dto.request.RegisterRequest;
+import com.registo.horas_estagio.dto.request.UserCredentialsRequest;
+import com.registo.horas_estagio.dto.response.LoginResponse;
+import com.registo.horas_estagio.dto.response.RegisterResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fluxo completo sobre H2 (registo de utilizador, JWT, criação e consulta de horas).
+ * Corre no build normal e em imagem nativa com ./mvnw -PnativeTest test.
+ */
+@Tag("integration")
+@ActiveProfiles("test")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.flyway.enabled=false",
+                "spring.datasource.url=jdbc:h2:mem:integration;DB_CLOSE_DELAY=-1",
+                "LOG_PATH=target/test-logs"
+        })
+@DisplayName("Testes de integração do registo de horas")
+class RegistoHorasIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    @DisplayName("Deve registar utilizador, criar registo e somar as horas geradas pela base de dados")
+    void shouldRegisterUserCreateEntryAndSumHours() {
+        // Given
+        ResponseEntity<LoginResponse> registo = restTemplate.postForEntity("/api/auth/registar",
+                new UserCredentialsRequest("integracao", "password123", "ADMIN"), LoginResponse.class);
+        assertThat(registo.getStatusCode()).isEqualTo(HttpStatus.OK);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(registo.getBody().token());
+
+        RegisterRequest request = new RegisterRequest(
+                "integracao",
+                "Desenvolvimento",
+                LocalDateTime.of(2024, 1, 15, 9, 0),
+                LocalDateTime.of(2024, 1, 15, 17, 30),
+                0);
+
+        // When
+        ResponseEntity<RegisterResponse> criado = restTemplate.exchange("/api/registos/add", HttpMethod.POST,
+                new HttpEntity<>(request, headers), RegisterResponse.class);
+        ResponseEntity<Map<String, Object>> total = restTemplate.exchange(
+                "/api/registos/total-hours?user=integracao", HttpMethod.GET, new HttpEntity<>(headers),
+                new ParameterizedTypeReference<>() {
+                });
+
+        // Then
+        assertThat(criado.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(criado.getBody().publicId()).isNotNull();
+        assertThat(criado.getBody().horasTrabalhadas()).isEqualTo(8.5);
+        assertThat(total.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(total.getBody()).containsEntry("totalHoursFormatted", "8.30");
+    }
+
+    @Test
+    @DisplayName("Pedido sem token deve ser rejeitado")
+    void shouldRejectRequestWithoutToken() {
+        // When
+        ResponseEntity<String> response = restTemplate.getForEntity("/api/registos/list", String.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+}
@@ -0,0 +1,130 @@
+package com.registo.horas_estagio.repository;
+
+import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.mapper.RequestMapper;
+import com.registo.horas_estagio.mapper.RequestMapperImpl;
+import com.registo.horas_estagio.models.RegisterHoras;
+import com.registo.horas_estagio.models.Usuario;
+import org.hibernate.Hibernate;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Harness de lazy loading: sem open-in-view, as entidades devolvidas pelos repositórios
+ * ficam detached no fim da transação. Os testes correm fora de transação (NOT_SUPPORTED),
+ * tal como a serialização da resposta, pelo que qualquer associação LAZY acedida ao mapear
+ * para DTO falha com LazyInitializationException.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.properties.hibernate.enable_lazy_load_no_trans=false"
+})
+@ActiveProfiles("test")
+@Import(RequestMapperImpl.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Harness de lazy loading fora de transação")
+class LazyLoadingHarnessTest {
+
+    @Autowired
+    private RegistroHorasRepository registroHorasRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RequestMapper requestMapper;
+
+    private UUID publicId;
+
+    @BeforeEach
+    void setUp() {
+        registroHorasRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        Usuario usuario = usuarioRepository.save(Usuario.builder()
+                .username("neto")
+                .password("password123")
+                .role("ESTAGIARIO")
+                .build());
+        publicId = UUID.randomUUID();
+        registroHorasRepository.save(RegisterHoras.builder()
+                .publicId(publicId)
+                .estagiario("neto")
+                .descricao("Desenvolvimento")
+                .dataInicio(LocalDateTime.of(2024, 1, 15, 9, 0))
+                .dataFim(LocalDateTime.of(2024, 1, 15, 17, 0))
+                .usuario(usuarioRepository.getReferenceById(usuario.getId()))
+                .build());
+    }
+
+    @Test
+    @DisplayName("Harness deve detetar lazy load fora de transação")
+    void shouldFailOnLazyLoadOutsideTransaction() {
+        // Given
+        RegisterHoras registo = registroHorasRepository.findByPublicId(publicId).orElseThrow();
+
+        // When & Then
+        assertThat(Hibernate.isInitialized(registo.getUsuario())).isFalse();
+        assertThatThrownBy(() -> registo.getUsuario().getUsername())
+                .isInstanceOf(LazyInitializationException.class);
+    }
+
+    @Test
+    @DisplayName("Mapear um registo para resposta não deve carregar o usuário")
+    void shouldMapRegisterWithoutLazyLoading() {
+        // Given
+        RegisterHoras registo = registroHorasRepository.findByPublicId(publicId).orElseThrow();
+
+        // When
+        RegisterResponse response = requestMapper.mapRegisterResponse(registo);
+
+        // Then
+        assertThat(response.horasTrabalhadas()).isEqualTo(8.0);
+        assertThat(Hibernate.isInitialized(registo.getUsuario())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Listagens (simples e paginada) devem ser mapeadas sem lazy loading")
+    void shouldMapListsWithoutLazyLoading() {
+        // Given
+        List<RegisterHoras> registos = registroHorasRepository.findByEstagiario("neto");
+        Page<RegisterHoras> pagina = registroHorasRepository.findByEstagiario("neto", PageRequest.of(0, 10));
+
+        // When
+        List<RegisterResponse> lista = requestMapper.mapToListRegisterResponse(registos);
+        List<RegisterResponse> paginada = requestMapper.mapToListRegisterResponse(pagina.getContent());
+
+        // Then
+        assertThat(lista).hasSize(1);
+        assertThat(paginada).hasSize(1);
+        assertThat(registos).allMatch(r -> !Hibernate.isInitialized(r.getUsuario()));
+    }
+
+    @Test
+    @DisplayName("Usuário carregado para autenticação não deve carregar as coleções")
+    void shouldLoadUsuarioWithoutCollections() {
+        // When
+        Usuario usuario = usuarioRepository.findByUsername("neto").orElseThrow();
+
+        // Then
+        assertThat(usuario.getRole()).isEqualTo("ESTAGIARIO");
+        assertThat(Hibernate.isInitialized(usuario.getRegistros())).isFalse();
+        assertThat(Hibernate.isInitialized(usuario.getJwtToken())).isFalse();
+    }
+}
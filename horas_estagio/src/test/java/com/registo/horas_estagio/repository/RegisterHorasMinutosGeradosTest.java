@@ -0,0 +1,91 @@
+package com.registo.horas_estagio.repository;
+
+import com.registo.horas_estagio.models.RegisterHoras;
+import com.registo.horas_estagio.models.Usuario;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * minutos_trabalhados é uma coluna gerada a partir de data_fim - data_inicio:
+ * o valor indicado na entidade é ignorado no INSERT/UPDATE e relido da base de dados.
+ */
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@ActiveProfiles("test")
+@DisplayName("Coluna gerada minutos_trabalhados")
+class RegisterHorasMinutosGeradosTest {
+
+    @Autowired
+    private RegistroHorasRepository registroHorasRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        usuario = entityManager.persistFlushFind(Usuario.builder()
+                .username("neto")
+                .password("password123")
+                .role("ESTAGIARIO")
+                .build());
+    }
+
+    @Test
+    @DisplayName("Horas declaradas em conflito com as datas devem ser substituídas pelo valor gerado")
+    void shouldStoreGeneratedMinutesInsteadOfDeclared() {
+        // Given: 8h declaradas num registo das 09:00 às 18:00
+        UUID publicId = UUID.randomUUID();
+        RegisterHoras registo = RegisterHoras.builder()
+                .publicId(publicId)
+                .estagiario("neto")
+                .descricao("Desenvolvimento de API REST")
+                .dataInicio(LocalDateTime.of(2024, 1, 15, 9, 0))
+                .dataFim(LocalDateTime.of(2024, 1, 15, 18, 0))
+                .minutosTrabalhados(8 * 60)
+                .usuario(usuario)
+                .build();
+
+        // When
+        RegisterHoras saved = registroHorasRepository.saveAndFlush(registo);
+        entityManager.clear();
+
+        // Then
+        assertThat(saved.getMinutosTrabalhados()).isEqualTo(9 * 60);
+        assertThat(registroHorasRepository.findByPublicId(publicId))
+                .hasValueSatisfying(r -> assertThat(r.getMinutosTrabalhados()).isEqualTo(9 * 60));
+    }
+
+    @Test
+    @DisplayName("Alterar as datas deve recalcular os minutos na base de dados")
+    void shouldRecalculateMinutesWhenDatesChange() {
+        // Given
+        RegisterHoras saved = registroHorasRepository.saveAndFlush(RegisterHoras.builder()
+                .estagiario("neto")
+                .descricao("Desenvolvimento de API REST")
+                .dataInicio(LocalDateTime.of(2024, 1, 15, 9, 0))
+                .dataFim(LocalDateTime.of(2024, 1, 15, 17, 0))
+                .usuario(usuario)
+                .build());
+
+        // When
+        saved.setDataFim(LocalDateTime.of(2024, 1, 15, 12, 30));
+        saved.setMinutosTrabalhados(8 * 60);
+        registroHorasRepository.saveAndFlush(saved);
+        entityManager.clear();
+
+        // Then
+        assertThat(registroHorasRepository.findByPublicId(saved.getPublicId()))
+                .hasValueSatisfying(r -> assertThat(r.getMinutosTrabalhados()).isEqualTo(3 * 60 + 30));
+    }
+}
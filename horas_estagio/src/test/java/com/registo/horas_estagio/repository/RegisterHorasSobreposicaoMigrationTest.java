@@ -0,0 +1,113 @@
+package com.registo.horas_estagio.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * V5 sobre uma base de dados com registos sobrepostos: os conflitos vão para register_horas_sobreposicao
+ * e a restrição de exclusão é criada. Precisa de Docker (PostgreSQL real por causa do btree_gist).
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("Migração V5 com registos sobrepostos")
+class RegisterHorasSobreposicaoMigrationTest {
+
+    @Container
+    private final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    @DisplayName("Deve mover os registos sobrepostos para quarentena e criar a restrição")
+    void shouldQuarantineOverlappingRowsBeforeAddingConstraint() {
+        // Given: esquema na V4 com sobreposições do mesmo usuário
+        migrateTo("4");
+        long neto = insertUsuario("neto");
+        long ana = insertUsuario("ana");
+        long original = insertRegisto(neto, "2024-01-15 09:00", "2024-01-15 13:00");
+        long sobreposto = insertRegisto(neto, "2024-01-15 12:00", "2024-01-15 14:00");
+        long contiguo = insertRegisto(neto, "2024-01-15 13:00", "2024-01-15 17:00");
+        long duplicado = insertRegisto(neto, "2024-01-15 09:00", "2024-01-15 13:00");
+        long outroUsuario = insertRegisto(ana, "2024-01-15 09:00", "2024-01-15 13:00");
+
+        // When
+        migrateTo("5");
+
+        // Then: ficam o mais antigo, o contíguo ([) não sobrepõe) e o do outro usuário
+        List<Long> restantes = jdbcTemplate.queryForList(
+                "SELECT id FROM register_horas ORDER BY id", Long.class);
+        assertThat(restantes).containsExactly(original, contiguo, outroUsuario);
+
+        List<Long> quarentena = jdbcTemplate.queryForList(
+                "SELECT id FROM register_horas_sobreposicao ORDER BY id", Long.class);
+        assertThat(quarentena).containsExactly(sobreposto, duplicado);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT conflito_com_id FROM register_horas_sobreposicao ORDER BY id", Long.class))
+                .containsExactly(original, original);
+
+        // A restrição passa a rejeitar novas sobreposições
+        assertThatThrownBy(() -> insertRegisto(neto, "2024-01-15 10:00", "2024-01-15 11:00"))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("register_horas_sem_sobreposicao");
+    }
+
+    @Test
+    @DisplayName("Sem sobreposições a quarentena deve ficar vazia")
+    void shouldLeaveQuarantineEmptyWithoutOverlaps() {
+        // Given
+        migrateTo("4");
+        long neto = insertUsuario("neto");
+        insertRegisto(neto, "2024-01-15 09:00", "2024-01-15 13:00");
+        insertRegisto(neto, "2024-01-16 09:00", "2024-01-16 13:00");
+
+        // When
+        migrateTo("5");
+
+        // Then
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM register_horas", Long.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM register_horas_sobreposicao", Long.class))
+                .isZero();
+    }
+
+    private void migrateTo(String version) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .target(version)
+                .load()
+                .migrate();
+    }
+
+    private long insertUsuario(String username) {
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO usuario (password, public_id, role, username) VALUES ('x', ?, 'ESTAGIARIO', ?) RETURNING id",
+                Long.class, UUID.randomUUID(), username);
+    }
+
+    private long insertRegisto(long usuarioId, String inicio, String fim) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO register_horas (data_inicio, data_fim, descricao, estagiario, horas_trabalhadas, public_id, usuario_id)
+                VALUES (?::timestamp, ?::timestamp, 'Desenvolvimento', 'neto', 4, ?, ?) RETURNING id
+                """, Long.class, inicio, fim, UUID.randomUUID(), usuarioId);
+    }
+}
@@ -0,0 +1,137 @@
+package com.registo.horas_estagio.repository;
+
+import com.registo.horas_estagio.models.RegisterHoras;
+import com.registo.horas_estagio.models.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache de segundo nível de Usuario e query cache de findByUsername.
+ * Os testes correm fora de transação (NOT_SUPPORTED) para que cada chamada ao repositório
+ * abra uma sessão nova, tal como um pedido HTTP, e só a cache partilhada evite a base de dados.
+ */
+@DataJpaTest(properties = "spring.flyway.enabled=false")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Cache de segundo nível de Usuario")
+class UsuarioCacheTest {
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private RegistroHorasRepository registroHorasRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        registroHorasRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        usuarioRepository.save(Usuario.builder()
+                .username("neto")
+                .password("password123")
+                .role("ESTAGIARIO")
+                .build());
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("findByUsername repetido deve ser servido pela query cache")
+    void shouldServeRepeatedLookupsFromQueryCache() {
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThat(usuarioRepository.findByUsername("neto")).isPresent();
+        }
+
+        // Then
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(9);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Escrita em usuario deve invalidar a query cache")
+    void shouldInvalidateQueryCacheOnWrite() {
+        // Given
+        usuarioRepository.findByUsername("neto");
+
+        // When
+        usuarioRepository.save(Usuario.builder()
+                .username("maria")
+                .password("password123")
+                .role("ESTAGIARIO")
+                .build());
+        usuarioRepository.findByUsername("neto");
+
+        // Then
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("PATCH nativo de register_horas não deve invalidar a cache de usuario")
+    void shouldKeepUsuarioCacheOnNativePatch() {
+        // Given
+        Usuario usuario = usuarioRepository.findByUsername("neto").orElseThrow();
+        RegisterHoras registo = registroHorasRepository.save(RegisterHoras.builder()
+                .estagiario("neto")
+                .descricao("Desenvolvimento de API REST")
+                .dataInicio(LocalDateTime.of(2024, 1, 15, 9, 0))
+                .dataFim(LocalDateTime.of(2024, 1, 15, 17, 0))
+                .usuario(usuario)
+                .build());
+        usuarioRepository.findByUsername("neto");
+        statistics.clear();
+
+        // When
+        Integer updated = new TransactionTemplate(transactionManager).execute(status -> registroHorasRepository
+                .patchByPublicId(registo.getPublicId(), "Revisão de código", null, null, null, null));
+        usuarioRepository.findByUsername("neto");
+
+        // Then
+        assertThat(updated).isEqualTo(1);
+        assertThat(statistics.getQueryExecutionCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Alteração do usuário deve ser visível através da cache")
+    void shouldReturnUpdatedUsuarioAfterWrite() {
+        // Given
+        Usuario usuario = usuarioRepository.findByUsername("neto").orElseThrow();
+        usuario.setRole("ADMIN");
+
+        // When
+        usuarioRepository.save(usuario);
+
+        // Then
+        assertThat(usuarioRepository.findByUsername("neto"))
+                .get()
+                .extracting(Usuario::getRole)
+                .isEqualTo("ADMIN");
+    }
+}
@@ -0,0 +1,89 @@
+package com.registo.horas_estagio.security;
+
+import com.registo.horas_estagio.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Testes do BoundedBCryptPasswordEncoder")
+class BoundedBCryptPasswordEncoderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BoundedBCryptPasswordEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        encoder = new BoundedBCryptPasswordEncoder(10, 1, 10, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve codificar e validar password no executor dedicado")
+    void shouldEncodeAndMatch() {
+        // When
+        String hash = encoder.encode("senha123");
+
+        // Then
+        assertThat(hash).startsWith("$2a$10$");
+        assertThat(encoder.matches("senha123", hash)).isTrue();
+        assertThat(encoder.matches("errada", hash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve pedir rehash quando o hash guardado tem custo inferior")
+    void shouldRequestUpgradeForWeakerHash() {
+        // Given
+        String hashAntigo = new BCryptPasswordEncoder(4).encode("senha123");
+        String hashAtual = encoder.encode("senha123");
+
+        // Then
+        assertThat(encoder.upgradeEncoding(hashAntigo)).isTrue();
+        assertThat(encoder.upgradeEncoding(hashAtual)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve expor métricas de profundidade da fila")
+    void shouldRegisterQueueMetrics() {
+        assertThat(meterRegistry.find("password.hashing.queue.size").gauge()).isNotNull();
+        assertThat(meterRegistry.find("password.hashing.active").gauge()).isNotNull();
+        assertThat(meterRegistry.find("password.hashing.rejected").counter()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Calibração deve respeitar os limites de custo")
+    void calibrationShouldStayWithinBounds() {
+        int strength = BoundedBCryptPasswordEncoder.calibrateStrength(Duration.ofMillis(1));
+
+        assertThat(strength).isBetween(BoundedBCryptPasswordEncoder.MIN_STRENGTH, BoundedBCryptPasswordEncoder.MAX_STRENGTH);
+    }
+
+    @Test
+    @DisplayName("Timeout deve libertar quem espera e contar como rejeitado")
+    void shouldReleaseCallerOnTimeout() {
+        // Given
+        BoundedBCryptPasswordEncoder slowEncoder =
+                new BoundedBCryptPasswordEncoder(12, 1, 10, Duration.ofMillis(1), meterRegistry);
+
+        try {
+            // When & Then
+            assertThatThrownBy(() -> slowEncoder.encode("password123"))
+                    .isInstanceOf(PasswordHashingBusyException.class);
+            assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isEqualTo(1.0);
+        } finally {
+            slowEncoder.shutdown();
+        }
+    }
+}
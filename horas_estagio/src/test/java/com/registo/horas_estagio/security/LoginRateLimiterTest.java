@@ -0,0 +1,86 @@
+package com.registo.horas_estagio.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Testes do LoginRateLimiter")
+class LoginRateLimiterTest {
+
+    private LoginRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new LoginRateLimiter(3, Duration.ofMinutes(1), 5, Duration.ofMinutes(1), Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Deve bloquear o username após esgotar a capacidade")
+    void shouldLimitPerUsername() {
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimiter.tryAcquire("neto", "10.0.0." + i)).isTrue();
+        }
+
+        // Then
+        assertThat(rateLimiter.tryAcquire("neto", "10.0.0.99")).isFalse();
+        assertThat(rateLimiter.tryAcquire("admin", "10.0.0.99")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Login bem-sucedido deve repor o bucket do username")
+    void shouldResetUsernameBucketOnSuccess() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("neto", "10.0.0." + i);
+        }
+
+        // When
+        rateLimiter.onSuccess(" Neto ");
+
+        // Then
+        assertThat(rateLimiter.tryAcquire("neto", "10.0.0.4")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Username deve ser normalizado (case e espaços)")
+    void shouldNormalizeUsername() {
+        rateLimiter.tryAcquire("neto", "10.0.0.1");
+        rateLimiter.tryAcquire(" NETO ", "10.0.0.2");
+        rateLimiter.tryAcquire("Neto", "10.0.0.3");
+
+        assertThat(rateLimiter.tryAcquire("neto", "10.0.0.4")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve bloquear o IP após esgotar a capacidade")
+    void shouldLimitPerIp() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("user" + i, "10.0.0.1")).isTrue();
+        }
+
+        // Then
+        assertThat(rateLimiter.tryAcquire("outro", "10.0.0.1")).isFalse();
+        assertThat(rateLimiter.tryAcquire("outro", "10.0.0.2")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Buckets inativos devem ser removidos")
+    void shouldEvictIdleBuckets() {
+        // Given
+        LoginRateLimiter limiter = new LoginRateLimiter(3, Duration.ofMinutes(1), 5, Duration.ofMinutes(1), Duration.ZERO);
+        limiter.tryAcquire("neto", "10.0.0.1");
+        assertThat(limiter.size()).isEqualTo(2);
+
+        // When
+        limiter.evictIdleBuckets();
+
+        // Then
+        assertThat(limiter.size()).isZero();
+    }
+}
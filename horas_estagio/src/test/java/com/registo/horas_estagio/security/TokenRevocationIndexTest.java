@@ -0,0 +1,136 @@
+package com.registo.horas_estagio.security;
+
+import com.registo.horas_estagio.models.JwtToken;
+import com.registo.horas_estagio.repository.JwtTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes do TokenRevocationIndex")
+class TokenRevocationIndexTest {
+
+    @Mock
+    private JwtTokenRepository jwtTokenRepository;
+
+    private TokenRevocationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TokenRevocationIndex(jwtTokenRepository);
+    }
+
+    @Test
+    @DisplayName("Deve carregar os tokens revogados no start, antes do servidor web")
+    void shouldLoadRevokedTokensOnStart() {
+        // Given
+        Instant exp = Instant.now().plus(Duration.ofHours(1));
+        when(jwtTokenRepository.findByRevokedTrueAndExpiresAtAfter(any(Instant.class)))
+                .thenReturn(List.of(revokedToken("token-1", exp), revokedToken("token-2", exp)));
+
+        // When
+        index.start();
+
+        // Then
+        assertThat(index.isRunning()).isTrue();
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.isRevoked(TokenDigest.of("token-1"))).isTrue();
+        assertThat(index.isRevoked(TokenDigest.of("token-2"))).isTrue();
+        assertThat(index.isRevoked(TokenDigest.of("token-3"))).isFalse();
+        assertThat(index.getPhase()).isLessThan(SmartLifecycle.DEFAULT_PHASE - 2048).isGreaterThan(0);
+    }
+
+    @Test
+    @DisplayName("Token revogado já expirado não deve contar como revogado e sai do índice")
+    void shouldDropExpiredEntryOnLookup() {
+        // Given
+        index.revoke("token-1", Instant.now().minusSeconds(1));
+
+        // When
+        boolean revoked = index.isRevoked(TokenDigest.of("token-1"));
+
+        // Then
+        assertThat(revoked).isFalse();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Purga deve remover apenas as entradas expiradas")
+    void shouldPurgeOnlyExpiredEntries() {
+        // Given
+        index.revoke("expirado", Instant.now().minusSeconds(1));
+        index.revoke("valido", Instant.now().plus(Duration.ofHours(1)));
+
+        // When
+        index.purgeExpired();
+
+        // Then
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.isRevoked(TokenDigest.of("valido"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Revogação concorrente com o carregamento não deve ser substituída nem perdida")
+    void shouldKeepRevocationMadeWhileLoading() {
+        // Given: durante a leitura da base de dados outra thread revoga dois tokens,
+        // um deles também devolvido pela leitura com uma expiração anterior
+        Instant exp = Instant.now().plus(Duration.ofHours(1));
+        when(jwtTokenRepository.findByRevokedTrueAndExpiresAtAfter(any(Instant.class))).thenAnswer(invocation -> {
+            CompletableFuture.runAsync(() -> {
+                index.revoke("concorrente", exp);
+                index.revoke("so-em-memoria", exp);
+            }).join();
+            return List.of(revokedToken("concorrente", Instant.now().minusSeconds(1)),
+                    revokedToken("da-base-de-dados", exp));
+        });
+
+        // When
+        index.loadFromDatabase();
+
+        // Then
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.isRevoked(TokenDigest.of("concorrente"))).isTrue();
+        assertThat(index.isRevoked(TokenDigest.of("so-em-memoria"))).isTrue();
+        assertThat(index.isRevoked(TokenDigest.of("da-base-de-dados"))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Novo start (restore CRaC) deve acrescentar revogações feitas entretanto")
+    void shouldReloadOnRestart() {
+        // Given
+        Instant exp = Instant.now().plus(Duration.ofHours(1));
+        when(jwtTokenRepository.findByRevokedTrueAndExpiresAtAfter(any(Instant.class)))
+                .thenReturn(List.of(revokedToken("token-1", exp)))
+                .thenReturn(List.of(revokedToken("token-1", exp), revokedToken("token-2", exp)));
+        index.start();
+        index.stop();
+
+        // When
+        index.start();
+
+        // Then
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.isRevoked(TokenDigest.of("token-2"))).isTrue();
+    }
+
+    private static JwtToken revokedToken(String token, Instant expiresAt) {
+        JwtToken jwtToken = new JwtToken();
+        jwtToken.setToken(token);
+        jwtToken.setExpiresAt(expiresAt);
+        jwtToken.setRevoked(true);
+        return jwtToken;
+    }
+}
@@ -0,0 +1,118 @@
+package com.registo.horas_estagio.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Testes do VerifiedTokenCache")
+class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache(3, Duration.ofMinutes(15));
+    }
+
+    @Test
+    @DisplayName("Deve devolver token verificado guardado no cache")
+    void shouldReturnCachedToken() {
+        // Given
+        String digest = TokenDigest.of("token-1");
+        Instant exp = Instant.now().plus(Duration.ofHours(1));
+
+        // When
+        cache.put(digest, "neto", exp);
+
+        // Then
+        assertThat(cache.get(digest)).isPresent();
+        assertThat(cache.get(digest).get().username()).isEqualTo("neto");
+        assertThat(cache.get(digest).get().expiresAt()).isEqualTo(exp);
+    }
+
+    @Test
+    @DisplayName("TTL da entrada não deve ultrapassar a expiração do token")
+    void shouldCapTtlAtTokenExpiration() {
+        // Given
+        String digest = TokenDigest.of("token-1");
+        Instant exp = Instant.now().plus(Duration.ofMinutes(1));
+
+        // When
+        cache.put(digest, "neto", exp);
+
+        // Then
+        assertThat(cache.get(digest).get().cachedUntil()).isEqualTo(exp);
+    }
+
+    @Test
+    @DisplayName("Não deve guardar token já expirado")
+    void shouldNotCacheExpiredToken() {
+        // Given
+        String digest = TokenDigest.of("token-1");
+
+        // When
+        cache.put(digest, "neto", Instant.now().minusSeconds(1));
+
+        // Then
+        assertThat(cache.get(digest)).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Evict deve remover a entrada imediatamente")
+    void shouldEvictEntry() {
+        // Given
+        String digest = TokenDigest.of("token-1");
+        cache.put(digest, "neto", Instant.now().plus(Duration.ofHours(1)));
+
+        // When
+        cache.evict(digest);
+
+        // Then
+        assertThat(cache.get(digest)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Cache deve respeitar o número máximo de entradas")
+    void shouldRespectMaxEntries() {
+        // Given
+        Instant exp = Instant.now().plus(Duration.ofHours(1));
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            cache.put(TokenDigest.of("token-" + i), "user" + i, exp);
+        }
+
+        // Then
+        assertThat(cache.size()).isLessThanOrEqualTo(3);
+        assertThat(cache.get(TokenDigest.of("token-9"))).isPresent();
+    }
+
+    @Test
+    @DisplayName("Digest deve ser determinístico e distinto por token")
+    void digestShouldBeDeterministic() {
+        assertThat(TokenDigest.of("abc")).isEqualTo(TokenDigest.of("abc"));
+        assertThat(TokenDigest.of("abc")).isNotEqualTo(TokenDigest.of("abd"));
+    }
+
+    @Test
+    @DisplayName("clear deve remover todos os tokens verificados")
+    void shouldClearAllEntries() {
+        // Given
+        Instant exp = Instant.now().plus(Duration.ofHours(1));
+        cache.put(TokenDigest.of("token-1"), "neto", exp);
+        cache.put(TokenDigest.of("token-2"), "admin", exp);
+
+        // When
+        cache.clear();
+
+        // Then
+        assertThat(cache.size()).isZero();
+        assertThat(cache.get(TokenDigest.of("token-1"))).isEmpty();
+    }
+}
@@ -0,0 +1,216 @@
+package com.registo.horas_estagio.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.registo.horas_estagio.dto.request.RegisterRequest;
+import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.exception.IdempotencyKeyInProgressException;
+import com.registo.horas_estagio.exception.IdempotencyKeyReuseException;
+import com.registo.horas_estagio.exception.InvalidIdempotencyKeyException;
+import com.registo.horas_estagio.models.IdempotencyKey;
+import com.registo.horas_estagio.repository.IdempotencyKeyRepository;
+import com.registo.horas_estagio.service.impl.IdempotencyKeyServiceImpl;
+import com.registo.horas_estagio.util.ObjectUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes do IdempotencyKeyService")
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IdempotencyKeyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private IdempotencyKeyServiceImpl idempotencyKeyService;
+    private RegisterRequest registerRequest;
+    private RegisterResponse registerResponse;
+    private AtomicInteger execucoes;
+    private Supplier<RegisterResponse> action;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyKeyService = new IdempotencyKeyServiceImpl(
+                idempotencyKeyRepository, transactionTemplate, objectMapper, Duration.ofDays(1), Duration.ofMinutes(10), Duration.ofMillis(200));
+        registerRequest = ObjectUtils.createDefaultRequest();
+        registerResponse = ObjectUtils.createDefaultResponse();
+        execucoes = new AtomicInteger();
+        action = () -> {
+            execucoes.incrementAndGet();
+            return registerResponse;
+        };
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(idempotencyKeyRepository.findByEstagiarioAndIdempotencyKey(any(), any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Primeira submissão deve executar e gravar a chave na mesma transação")
+    void shouldExecuteAndStoreKeyOnFirstSubmission() {
+        // When
+        RegisterResponse result = idempotencyKeyService.submitOnce("chave-1", registerRequest, action);
+
+        // Then
+        assertThat(result).isEqualTo(registerResponse);
+        assertThat(execucoes).hasValue(1);
+
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        assertThat(captor.getValue().getEstagiario()).isEqualTo("neto");
+        assertThat(captor.getValue().getIdempotencyKey()).isEqualTo("chave-1");
+        assertThat(captor.getValue().getExpiresAt()).isAfter(captor.getValue().getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("Retry com a mesma chave deve devolver a resposta original sem executar")
+    void shouldReturnOriginalResponseOnRetry() {
+        // Given
+        idempotencyKeyService.submitOnce("chave-1", registerRequest, action);
+
+        // When
+        RegisterResponse retry = idempotencyKeyService.submitOnce("chave-1", registerRequest, action);
+
+        // Then
+        assertThat(retry).isEqualTo(registerResponse);
+        assertThat(execucoes).hasValue(1);
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Chave já gravada na base de dados deve ser reproduzida após reinício")
+    void shouldReplayStoredKey() throws Exception {
+        // Given
+        idempotencyKeyService.submitOnce("chave-1", registerRequest, action);
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        when(idempotencyKeyRepository.findByEstagiarioAndIdempotencyKey("neto", "chave-1"))
+                .thenReturn(Optional.of(captor.getValue()));
+
+        IdempotencyKeyServiceImpl reiniciado = new IdempotencyKeyServiceImpl(
+                idempotencyKeyRepository, transactionTemplate, objectMapper, Duration.ofDays(1), Duration.ofMinutes(10), Duration.ofMillis(200));
+
+        // When
+        RegisterResponse replay = reiniciado.submitOnce("chave-1", registerRequest, action);
+
+        // Then
+        assertThat(replay).isEqualTo(registerResponse);
+        assertThat(execucoes).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Reutilizar a chave com outro pedido deve ser rejeitado")
+    void shouldRejectKeyReuseWithDifferentRequest() {
+        // Given
+        idempotencyKeyService.submitOnce("chave-1", registerRequest, action);
+        RegisterRequest outro = new RegisterRequest(
+                "neto", "Outra tarefa", registerRequest.dataInicio(), registerRequest.dataFim(), 2);
+
+        // When & Then
+        assertThatThrownBy(() -> idempotencyKeyService.submitOnce("chave-1", outro, action))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+        assertThat(execucoes).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Falha na submissão não deve ficar memorizada")
+    void shouldNotMemoizeFailures() {
+        // Given
+        Supplier<RegisterResponse> falha = () -> {
+            throw new RuntimeException("Usuário não encontrado: neto");
+        };
+        assertThatThrownBy(() -> idempotencyKeyService.submitOnce("chave-1", registerRequest, falha))
+                .hasMessageContaining("Usuário não encontrado");
+
+        // When
+        RegisterResponse result = idempotencyKeyService.submitOnce("chave-1", registerRequest, action);
+
+        // Then
+        assertThat(result).isEqualTo(registerResponse);
+        assertThat(execucoes).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Chave com mais de 255 caracteres deve ser rejeitada antes de executar")
+    void shouldRejectTooLongKey() {
+        // Given
+        String chave = "k".repeat(256);
+
+        // When & Then
+        assertThatThrownBy(() -> idempotencyKeyService.submitOnce(chave, registerRequest, action))
+                .isInstanceOf(InvalidIdempotencyKeyException.class)
+                .hasMessageContaining("255");
+        assertThat(execucoes).hasValue(0);
+        verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    @Test
+    @DisplayName("Retry não deve esperar indefinidamente por um pedido original bloqueado")
+    void shouldTimeoutWaitingForStuckOriginalRequest() throws Exception {
+        // Given
+        CountDownLatch iniciado = new CountDownLatch(1);
+        CountDownLatch libertar = new CountDownLatch(1);
+        Supplier<RegisterResponse> bloqueada = () -> {
+            iniciado.countDown();
+            try {
+                libertar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return action.get();
+        };
+        CompletableFuture<RegisterResponse> original = CompletableFuture.supplyAsync(
+                () -> idempotencyKeyService.submitOnce("chave-1", registerRequest, bloqueada));
+        assertThat(iniciado.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When & Then
+        assertThatThrownBy(() -> idempotencyKeyService.submitOnce("chave-1", registerRequest, action))
+                .isInstanceOf(IdempotencyKeyInProgressException.class);
+
+        // O pedido original não é afetado pelo timeout do retry
+        libertar.countDown();
+        assertThat(original.get(5, TimeUnit.SECONDS)).isEqualTo(registerResponse);
+        assertThat(execucoes).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Impressão digital deve depender dos valores e não da instância do pedido")
+    void shouldFingerprintRequestByValue() {
+        // Given
+        idempotencyKeyService.submitOnce("chave-1", registerRequest, action);
+        RegisterRequest igual = new RegisterRequest(registerRequest.estagiario(), registerRequest.descricao(),
+                registerRequest.dataInicio(), registerRequest.dataFim(), registerRequest.horasTrabalhadas());
+
+        // When
+        RegisterResponse replay = idempotencyKeyService.submitOnce("chave-1", igual, action);
+
+        // Then
+        assertThat(replay).isEqualTo(registerResponse);
+        assertThat(execucoes).hasValue(1);
+    }
+}
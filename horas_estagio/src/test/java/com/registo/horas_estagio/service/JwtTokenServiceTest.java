@@ -0,0 +1,200 @@
+package com.registo.horas_estagio.service;
+
+import com.registo.horas_estagio.models.JwtToken;
+import com.registo.horas_estagio.repository.JwtTokenRepository;
+import com.registo.horas_estagio.security.TokenRevocationIndex;
+import com.registo.horas_estagio.security.VerifiedTokenCache;
+import com.registo.horas_estagio.service.impl.JwtTokenServiceImpl;
+import com.registo.horas_estagio.service.impl.JwtTokenWriteBehindQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes do JwtTokenService")
+@MockitoSettings(strictness = Strictness.LENIENT)
+class JwtTokenServiceTest {
+
+    @Mock
+    private JwtTokenRepository jwtTokenRepository;
+
+    @Mock
+    private JwtTokenWriteBehindQueue jwtTokenWriteBehindQueue;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private TokenRevocationIndex tokenRevocationIndex;
+
+    private JwtTokenServiceImpl jwtTokenService;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenService = new JwtTokenServiceImpl(jwtTokenRepository, jwtTokenWriteBehindQueue,
+                verifiedTokenCache, tokenRevocationIndex, 100, Duration.ofHours(24).toMillis());
+    }
+
+    @Test
+    @DisplayName("Token guardado deve ser reutilizado sem consultar a base de dados")
+    void shouldReuseSavedTokenFromMemory() {
+        // Given
+        Instant now = Instant.now();
+        jwtTokenService.saveToken("token-1", "neto", now, now.plus(Duration.ofHours(1)));
+
+        // When
+        Optional<JwtToken> reusable = jwtTokenService.getReusableTokenForUser("neto");
+
+        // Then
+        assertThat(reusable).isPresent();
+        assertThat(reusable.get().getToken()).isEqualTo("token-1");
+        verify(jwtTokenRepository, never()).findTopByUsuario_UsernameAndRevokedFalseOrderByExpiresAtDesc(anyString());
+    }
+
+    @Test
+    @DisplayName("Após esvaziar as caches (checkpoint CRaC) o token deve voltar a ser lido da base de dados")
+    void shouldReadFromDatabaseAfterClearingCachedTokens() {
+        // Given
+        Instant now = Instant.now();
+        jwtTokenService.saveToken("token-1", "neto", now, now.plus(Duration.ofHours(1)));
+        when(jwtTokenRepository.findTopByUsuario_UsernameAndRevokedFalseOrderByExpiresAtDesc("neto"))
+                .thenReturn(Optional.empty());
+
+        // When
+        jwtTokenService.clearCachedTokens();
+        Optional<JwtToken> reusable = jwtTokenService.getReusableTokenForUser("neto");
+
+        // Then: o usuário removido da base de dados já não tem token reutilizável
+        assertThat(reusable).isEmpty();
+        verify(verifiedTokenCache).clear();
+        verify(jwtTokenRepository).findTopByUsuario_UsernameAndRevokedFalseOrderByExpiresAtDesc("neto");
+    }
+
+    @Test
+    @DisplayName("Gravação do token deve ser delegada à fila write-behind")
+    void shouldEnqueueTokenForBatchPersistence() {
+        // Given
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(Duration.ofHours(1));
+
+        // When
+        jwtTokenService.saveToken("token-1", "Neto", now, expiresAt);
+
+        // Then
+        verify(jwtTokenWriteBehindQueue).enqueue("token-1", "neto", now, expiresAt);
+        verify(jwtTokenRepository, never()).save(any(JwtToken.class));
+    }
+
+    @Test
+    @DisplayName("Token pendente na fila deve ser encontrado e considerado ativo")
+    void shouldFindPendingTokenBeforeFlush() {
+        // Given
+        JwtTokenWriteBehindQueue.PendingToken pendente = mock(JwtTokenWriteBehindQueue.PendingToken.class);
+        when(pendente.token()).thenReturn("token-1");
+        when(pendente.expiresAt()).thenReturn(Instant.now().plus(Duration.ofHours(1)));
+        when(jwtTokenWriteBehindQueue.findPending("token-1")).thenReturn(Optional.of(pendente));
+
+        // When
+        boolean ativo = jwtTokenService.isTokenActive("token-1");
+
+        // Then
+        assertThat(ativo).isTrue();
+        verify(jwtTokenRepository, never()).findByToken(anyString());
+    }
+
+    @Test
+    @DisplayName("Deve consultar a base de dados quando não há token em memória")
+    void shouldFallbackToDatabaseOnMiss() {
+        // Given
+        JwtToken persisted = new JwtToken();
+        persisted.setToken("token-bd");
+        persisted.setIssuedAt(Instant.now());
+        persisted.setExpiresAt(Instant.now().plus(Duration.ofHours(1)));
+        when(jwtTokenRepository.findTopByUsuario_UsernameAndRevokedFalseOrderByExpiresAtDesc("neto"))
+                .thenReturn(Optional.of(persisted));
+
+        // When
+        jwtTokenService.getReusableTokenForUser("neto");
+        Optional<JwtToken> second = jwtTokenService.getReusableTokenForUser("neto");
+
+        // Then
+        assertThat(second).isPresent();
+        assertThat(second.get().getToken()).isEqualTo("token-bd");
+        verify(jwtTokenRepository, times(1)).findTopByUsuario_UsernameAndRevokedFalseOrderByExpiresAtDesc("neto");
+    }
+
+    @Test
+    @DisplayName("Token expirado em memória não deve ser reutilizado")
+    void shouldNotReuseExpiredCachedToken() {
+        // Given
+        Instant now = Instant.now();
+        jwtTokenService.saveToken("token-expirado", "neto", now.minus(Duration.ofHours(2)), now.minusSeconds(1));
+        when(jwtTokenRepository.findTopByUsuario_UsernameAndRevokedFalseOrderByExpiresAtDesc("neto"))
+                .thenReturn(Optional.empty());
+
+        // When
+        Optional<JwtToken> reusable = jwtTokenService.getReusableTokenForUser("neto");
+
+        // Then
+        assertThat(reusable).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Revogação deve invalidar o token em memória e atualizar os índices")
+    void shouldInvalidateCachedTokenOnRevoke() {
+        // Given
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(Duration.ofHours(1));
+        jwtTokenService.saveToken("token-1", "neto", now, expiresAt);
+
+        JwtToken persisted = new JwtToken();
+        persisted.setToken("token-1");
+        persisted.setExpiresAt(expiresAt);
+        when(jwtTokenRepository.findByToken("token-1")).thenReturn(Optional.of(persisted));
+        when(jwtTokenRepository.findTopByUsuario_UsernameAndRevokedFalseOrderByExpiresAtDesc("neto"))
+                .thenReturn(Optional.empty());
+
+        // When
+        jwtTokenService.revokeToken("token-1");
+
+        // Then
+        assertThat(persisted.isRevoked()).isTrue();
+        assertThat(jwtTokenService.getReusableTokenForUser("neto")).isEmpty();
+        verify(tokenRevocationIndex).revoke("token-1", expiresAt);
+        verify(verifiedTokenCache).evict(anyString());
+    }
+
+    @Test
+    @DisplayName("Revogação deve remover apenas o token revogado do usuário")
+    void shouldKeepNewerTokenWhenOlderIsRevoked() {
+        // Given
+        Instant now = Instant.now();
+        jwtTokenService.saveToken("token-antigo", "neto", now, now.plus(Duration.ofHours(1)));
+        jwtTokenService.saveToken("token-novo", "Neto", now, now.plus(Duration.ofHours(2)));
+        when(jwtTokenRepository.findByToken("token-antigo")).thenReturn(Optional.empty());
+        when(jwtTokenWriteBehindQueue.revokePending("token-antigo")).thenReturn(Optional.empty());
+
+        // When
+        jwtTokenService.revokeToken("token-antigo");
+
+        // Then
+        assertThat(jwtTokenService.getReusableTokenForUser("neto"))
+                .get()
+                .extracting(JwtToken::getToken)
+                .isEqualTo("token-novo");
+    }
+}
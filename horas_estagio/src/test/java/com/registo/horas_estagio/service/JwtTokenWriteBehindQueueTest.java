@@ -0,0 +1,123 @@
+package com.registo.horas_estagio.service;
+
+import com.registo.horas_estagio.exception.TokenPersistenceException;
+import com.registo.horas_estagio.security.TokenRevocationIndex;
+import com.registo.horas_estagio.service.impl.JwtTokenWriteBehindQueue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("Testes da fila write-behind de tokens")
+class JwtTokenWriteBehindQueueTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TokenRevocationIndex tokenRevocationIndex;
+
+    private JwtTokenWriteBehindQueue queue;
+    private Instant expiresAt;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        queue = new JwtTokenWriteBehindQueue(jdbcTemplate, new TransactionTemplate(transactionManager),
+                tokenRevocationIndex, 10, Duration.ofMillis(20), 100, Duration.ofMillis(100));
+        expiresAt = Instant.now().plus(Duration.ofHours(1));
+        // Token "duplicado" viola a restrição única; os restantes são gravados
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<JwtTokenWriteBehindQueue.PendingToken> batch = invocation.getArgument(1);
+                    if (batch.stream().anyMatch(t -> t.token().equals("duplicado"))) {
+                        throw new DataIntegrityViolationException("duplicate key jwt_token.token");
+                    }
+                    int[] counts = new int[batch.size()];
+                    Arrays.fill(counts, 1);
+                    return new int[][]{counts};
+                });
+    }
+
+    @Test
+    @DisplayName("Linha inválida não deve impedir a gravação das restantes")
+    void shouldPersistValidTokensWhenOneRowFails() {
+        // Given
+        queue.start();
+
+        // When
+        queue.enqueue("token-1", "neto", Instant.now(), expiresAt);
+        queue.enqueue("duplicado", "neto", Instant.now(), expiresAt);
+        queue.enqueue("token-2", "maria", Instant.now(), expiresAt);
+        queue.stop();
+
+        // Then
+        verify(tokenRevocationIndex).revoke("duplicado", expiresAt);
+        verify(tokenRevocationIndex, never()).revoke(eq("token-1"), any());
+        verify(tokenRevocationIndex, never()).revoke(eq("token-2"), any());
+        assertThat(queue.findPending("token-1")).isEmpty();
+        assertThat(queue.findPending("duplicado")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Gravação síncrona falhada deve rejeitar o login e revogar o token")
+    void shouldRejectLoginWhenSynchronousWriteFails() {
+        // When & Then (fila parada: gravação síncrona)
+        assertThatThrownBy(() -> queue.enqueue("duplicado", "neto", Instant.now(), expiresAt))
+                .isInstanceOf(TokenPersistenceException.class);
+        verify(tokenRevocationIndex).revoke("duplicado", expiresAt);
+    }
+
+    @Test
+    @DisplayName("Token de usuário inexistente deve ser revogado em memória")
+    @SuppressWarnings("unchecked")
+    void shouldRevokeTokenWhenUserIsMissing() {
+        // Given
+        doReturn(new int[][]{{0}}).when(jdbcTemplate)
+                .batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+        // When & Then
+        assertThatThrownBy(() -> queue.enqueue("token-orfao", "removido", Instant.now(), expiresAt))
+                .isInstanceOf(TokenPersistenceException.class);
+        verify(tokenRevocationIndex).revoke("token-orfao", expiresAt);
+    }
+
+    @Test
+    @DisplayName("Gravação síncrona bem-sucedida não deve revogar o token")
+    void shouldPersistSynchronouslyWhenStopped() {
+        // When
+        queue.enqueue("token-1", "neto", Instant.now(), expiresAt);
+
+        // Then
+        verify(tokenRevocationIndex, never()).revoke(anyString(), any());
+        assertThat(queue.findPending("token-1")).isEmpty();
+    }
+}
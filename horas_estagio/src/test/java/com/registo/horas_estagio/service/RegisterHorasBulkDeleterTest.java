@@ -0,0 +1,102 @@
+package com.registo.horas_estagio.service;
+
+import com.registo.horas_estagio.repository.RegistroHorasRepository;
+import com.registo.horas_estagio.service.impl.RegisterHorasBulkDeleter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Testes do RegisterHorasBulkDeleter")
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RegisterHorasBulkDeleterTest {
+
+    @Mock
+    private RegistroHorasRepository registroHorasRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private RegisterHorasBulkDeleter bulkDeleter;
+
+    @BeforeEach
+    void setUp() {
+        bulkDeleter = new RegisterHorasBulkDeleter(registroHorasRepository, transactionTemplate, 2);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Deve remover lista de UUIDs em batches, um por transação")
+    void shouldDeletePublicIdsInBatches() {
+        // Given
+        List<UUID> ids = IntStream.range(0, 5).mapToObj(i -> UUID.randomUUID()).toList();
+        when(registroHorasRepository.deleteByPublicIdIn(anyList()))
+                .thenAnswer(invocation -> invocation.<List<UUID>>getArgument(0).size());
+
+        // When
+        long deleted = bulkDeleter.deleteByPublicIds(ids);
+
+        // Then
+        assertThat(deleted).isEqualTo(5);
+        verify(registroHorasRepository, times(3)).deleteByPublicIdIn(anyList());
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    @DisplayName("Deve remover por período até não restarem registos")
+    void shouldDeletePeriodUntilExhausted() {
+        // Given
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime fim = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(registroHorasRepository.findIdsByEstagiarioAndPeriod(eq("neto"), eq(inicio), eq(fim), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(registroHorasRepository.deleteByIdIn(anyList()))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+
+        // When
+        long deleted = bulkDeleter.deleteByEstagiarioAndPeriod("neto", inicio, fim);
+
+        // Then
+        assertThat(deleted).isEqualTo(3);
+        verify(registroHorasRepository, times(2)).deleteByIdIn(anyList());
+    }
+
+    @Test
+    @DisplayName("Remoção concorrente de parte do batch não deve terminar o ciclo antes do tempo")
+    void shouldKeepDeletingWhenConcurrentDeleteShrinksBatch() {
+        // Given
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime fim = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(registroHorasRepository.findIdsByEstagiarioAndPeriod(eq("neto"), eq(inicio), eq(fim), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of());
+        // O ID 2 foi removido por outra transação entre a seleção e o DELETE
+        when(registroHorasRepository.deleteByIdIn(anyList())).thenReturn(1, 2);
+
+        // When
+        long deleted = bulkDeleter.deleteByEstagiarioAndPeriod("neto", inicio, fim);
+
+        // Then
+        assertThat(deleted).isEqualTo(3);
+        verify(registroHorasRepository, times(3)).findIdsByEstagiarioAndPeriod(eq("neto"), eq(inicio), eq(fim), any(Pageable.class));
+        verify(registroHorasRepository, times(2)).deleteByIdIn(anyList());
+    }
+}
@@ -0,0 +1,122 @@
+package com.registo.horas_estagio.service;
+
+import com.registo.horas_estagio.models.RegisterHorasIngestionFalha.Motivo;
+import com.registo.horas_estagio.service.impl.RegisterHorasIngestionQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("Testes da fila de ingestão assíncrona de registos")
+class RegisterHorasIngestionQueueTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RegisterHorasIngestionQueue queue;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        queue = new RegisterHorasIngestionQueue(jdbcTemplate, new TransactionTemplate(transactionManager),
+                new SimpleMeterRegistry(), true, 10, Duration.ofMillis(20), 100);
+        // Registos de "sobreposto" violam a exclusion constraint; os restantes são gravados
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<RegisterHorasIngestionQueue.PendingRegister> batch = invocation.getArgument(1);
+                    if (batch.stream().anyMatch(r -> r.estagiario().equals("sobreposto"))) {
+                        throw new DataIntegrityViolationException("register_horas_sem_sobreposicao",
+                                new SQLException("conflicting key value violates exclusion constraint", "23P01"));
+                    }
+                    int[] counts = new int[batch.size()];
+                    Arrays.fill(counts, 1);
+                    return new int[][]{counts};
+                });
+    }
+
+    @Test
+    @DisplayName("Registo sobreposto deve ir para o dead-letter com o motivo")
+    void shouldRecordOverlapInDeadLetter() throws SQLException {
+        // Given
+        queue.start();
+        RegisterHorasIngestionQueue.PendingRegister valido = pendente("neto");
+        RegisterHorasIngestionQueue.PendingRegister sobreposto = pendente("sobreposto");
+
+        // When
+        queue.offer(valido);
+        queue.offer(sobreposto);
+        queue.stop();
+
+        // Then
+        ArgumentCaptor<PreparedStatementSetter> setter = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).update(contains("register_horas_ingestion_falha"), setter.capture());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        setter.getValue().setValues(ps);
+        verify(ps).setObject(1, sobreposto.publicId());
+        verify(ps).setString(7, Motivo.SOBREPOSICAO.name());
+        assertThat(queue.findPending(sobreposto.publicId())).isEmpty();
+        assertThat(queue.findFailure(sobreposto.publicId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Falha que não é possível gravar no dead-letter deve continuar visível em memória")
+    @SuppressWarnings("unchecked")
+    void shouldKeepFailureInMemoryWhenDeadLetterIsUnavailable() {
+        // Given
+        doThrow(new DataAccessResourceFailureException("ligação recusada")).when(jdbcTemplate)
+                .batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        doThrow(new DataAccessResourceFailureException("ligação recusada")).when(jdbcTemplate)
+                .update(anyString(), any(PreparedStatementSetter.class));
+        queue.start();
+        RegisterHorasIngestionQueue.PendingRegister registo = pendente("neto");
+
+        // When
+        queue.offer(registo);
+        queue.stop();
+
+        // Then
+        assertThat(queue.findPending(registo.publicId())).isEmpty();
+        assertThat(queue.findFailure(registo.publicId()))
+                .hasValueSatisfying(f -> assertThat(f.motivo()).isEqualTo(Motivo.FALHA_GRAVACAO));
+    }
+
+    private static RegisterHorasIngestionQueue.PendingRegister pendente(String estagiario) {
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 15, 9, 0);
+        return new RegisterHorasIngestionQueue.PendingRegister(
+                UUID.randomUUID(), estagiario, "Desenvolvimento de API REST", inicio, inicio.plusHours(8), 8 * 60, 1L);
+    }
+}
@@ -1,14 +1,26 @@
 package com.registo.horas_estagio.service;
 
+import com.registo.horas_estagio.dto.request.BulkDeleteRequest;
+import com.registo.horas_estagio.dto.request.RegisterPatchRequest;
 import com.registo.horas_estagio.dto.request.RegisterRequest;
+import com.registo.horas_estagio.dto.response.BulkDeleteResponse;
 import com.registo.horas_estagio.dto.response.PageResponse;
 import com.registo.horas_estagio.dto.response.RegisterResponse;
+import com.registo.horas_estagio.dto.response.RegisterStatusResponse;
+import com.registo.horas_estagio.exception.IngestionQueueFullException;
+import com.registo.horas_estagio.exception.RegisterIngestionFailedException;
+import com.registo.horas_estagio.exception.RegisterVersionConflictException;
 import com.registo.horas_estagio.mapper.RequestMapper;
 import com.registo.horas_estagio.models.RegisterHoras;
+import com.registo.horas_estagio.models.RegisterHorasIngestionFalha;
 import com.registo.horas_estagio.models.Usuario;
+import com.registo.horas_estagio.repository.RegisterHorasIngestionFalhaRepository;
 import com.registo.horas_estagio.repository.RegistroHorasRepository;
 import com.registo.horas_estagio.repository.UsuarioRepository;
+import com.registo.horas_estagio.service.impl.RegisterHorasBulkDeleter;
+import com.registo.horas_estagio.service.impl.RegisterHorasIngestionQueue;
 import com.registo.horas_estagio.service.impl.RegisterHorasServiceImpl;
+import com.registo.horas_estagio.service.impl.UsuarioIdCache;
 import com.registo.horas_estagio.util.ObjectUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,6 +28,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
@@ -23,7 +36,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.access.AccessDeniedException;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -48,6 +63,18 @@ class RegisterHorasServiceTest {
     @Mock
     private RequestMapper requestMapper;
 
+    @Spy
+    private UsuarioIdCache usuarioIdCache = new UsuarioIdCache(100);
+
+    @Mock
+    private RegisterHorasIngestionQueue ingestionQueue;
+
+    @Mock
+    private RegisterHorasBulkDeleter bulkDeleter;
+
+    @Mock
+    private RegisterHorasIngestionFalhaRepository ingestionFalhaRepository;
+
     @InjectMocks
     private RegisterHorasServiceImpl registerHorasService;
 
@@ -68,7 +95,8 @@ class RegisterHorasServiceTest {
     @DisplayName("Deve criar registro de horas com sucesso")
     void shouldCreateRegisterHorasSuccessfully() {
         // Given
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
         when(requestMapper.mapToRegisterHoras(registerRequest)).thenReturn(registerHoras);
         when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
         when(requestMapper.mapRegisterResponse(registerHoras)).thenReturn(registerResponse);
@@ -82,7 +110,7 @@ class RegisterHorasServiceTest {
         assertThat(result.descricao()).isEqualTo("Desenvolvimento de API REST");
         assertThat(result.horasTrabalhadas()).isEqualTo(9);
 
-        verify(usuarioRepository).findByUsername("neto");
+        verify(usuarioRepository).findIdByUsername("neto");
         verify(registroHorasRepository).save(any(RegisterHoras.class));
         verify(requestMapper).mapRegisterResponse(registerHoras);
     }
@@ -91,7 +119,7 @@ class RegisterHorasServiceTest {
     @DisplayName("Deve lançar exceção quando usuário não existe")
     void shouldThrowExceptionWhenUserNotFound() {
         // Given
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.empty());
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.empty());
         when(requestMapper.mapToRegisterHoras(registerRequest)).thenReturn(registerHoras);
 
         // When & Then
@@ -99,10 +127,230 @@ class RegisterHorasServiceTest {
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Usuário não encontrado");
 
-        verify(usuarioRepository).findByUsername("neto");
+        verify(usuarioRepository).findIdByUsername("neto");
+        verify(registroHorasRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deve resolver o usuário pelo cache de ids sem nova consulta")
+    void shouldResolveUsuarioFromIdCache() {
+        // Given
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
+        when(requestMapper.mapToRegisterHoras(registerRequest)).thenReturn(registerHoras);
+        when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
+        when(requestMapper.mapRegisterResponse(registerHoras)).thenReturn(registerResponse);
+
+        // When
+        registerHorasService.submitHours(registerRequest);
+        registerHorasService.submitHours(registerRequest);
+
+        // Then
+        verify(usuarioRepository, times(1)).findIdByUsername("neto");
+        verify(usuarioRepository, times(2)).getReferenceById(usuario.getId());
+        verify(usuarioRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Deve aceitar registo assíncrono com publicId pré-gerado")
+    void shouldEnqueueAsyncRegister() {
+        // Given
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(ingestionQueue.offer(any())).thenReturn(true);
+
+        // When
+        RegisterResponse result = registerHorasService.submitHoursAsync(registerRequest);
+
+        // Then
+        assertThat(result.publicId()).isNotNull();
+        assertThat(result.estagiario()).isEqualTo("neto");
+        assertThat(result.horasTrabalhadas()).isEqualTo(9);
+        verify(ingestionQueue).offer(argThat(p -> p.publicId().equals(result.publicId()) && p.usuarioId().equals(1L)));
         verify(registroHorasRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("Deve rejeitar registo assíncrono quando a fila está cheia")
+    void shouldRejectAsyncRegisterWhenQueueFull() {
+        // Given
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(ingestionQueue.offer(any())).thenReturn(false);
+
+        // When & Then
+        assertThatThrownBy(() -> registerHorasService.submitHoursAsync(registerRequest))
+                .isInstanceOf(IngestionQueueFullException.class);
+    }
+
+    @Test
+    @DisplayName("Deve encontrar registo ainda pendente na fila de ingestão")
+    void shouldFindPendingRegister() {
+        // Given
+        UUID publicId = UUID.randomUUID();
+        RegisterHorasIngestionQueue.PendingRegister pendente = new RegisterHorasIngestionQueue.PendingRegister(
+                publicId, "neto", "Desenvolvimento de API REST",
+                registerRequest.dataInicio(), registerRequest.dataFim(), 9 * 60, 1L);
+        when(ingestionQueue.findPending(publicId)).thenReturn(Optional.of(pendente));
+
+        // When
+        RegisterResponse result = registerHorasService.findRegisteredHours(publicId);
+
+        // Then
+        assertThat(result.publicId()).isEqualTo(publicId);
+        verify(registroHorasRepository, never()).findByPublicId(any());
+    }
+
+    @Test
+    @DisplayName("Deve devolver o estado FALHADO com o motivo de um registo assíncrono rejeitado")
+    void shouldReturnFailedStatusWithReason() {
+        // Given
+        UUID publicId = UUID.randomUUID();
+        RegisterHorasIngestionFalha falha = RegisterHorasIngestionFalha.builder()
+                .publicId(publicId)
+                .estagiario("neto")
+                .motivo(RegisterHorasIngestionFalha.Motivo.SOBREPOSICAO)
+                .build();
+        when(ingestionQueue.findPending(publicId)).thenReturn(Optional.empty());
+        when(ingestionQueue.findFailure(publicId)).thenReturn(Optional.empty());
+        when(registroHorasRepository.findByPublicId(publicId)).thenReturn(Optional.empty());
+        when(ingestionFalhaRepository.findById(publicId)).thenReturn(Optional.of(falha));
+
+        // When
+        RegisterStatusResponse result = registerHorasService.findRegisterStatus(publicId);
+
+        // Then
+        assertThat(result.estado()).isEqualTo(RegisterStatusResponse.Estado.FALHADO);
+        assertThat(result.estagiario()).isEqualTo("neto");
+        assertThat(result.motivo()).isEqualTo(RegisterHorasIngestionFalha.Motivo.SOBREPOSICAO.getDescricao());
+    }
+
+    @Test
+    @DisplayName("Consulta de registo assíncrono falhado deve distinguir-se de 'não encontrado'")
+    void shouldThrowIngestionFailedWhenRegisterWasNotPersisted() {
+        // Given
+        UUID publicId = UUID.randomUUID();
+        RegisterHorasIngestionQueue.PendingRegister pendente = new RegisterHorasIngestionQueue.PendingRegister(
+                publicId, "neto", "Desenvolvimento de API REST",
+                registerRequest.dataInicio(), registerRequest.dataFim(), 9 * 60, 1L);
+        when(ingestionQueue.findPending(publicId)).thenReturn(Optional.empty());
+        when(registroHorasRepository.findByPublicId(publicId)).thenReturn(Optional.empty());
+        when(ingestionQueue.findFailure(publicId)).thenReturn(Optional.of(new RegisterHorasIngestionQueue.FailedRegister(
+                pendente, RegisterHorasIngestionFalha.Motivo.FALHA_GRAVACAO, "ligação recusada", Instant.now())));
+
+        // When & Then
+        assertThatThrownBy(() -> registerHorasService.findRegisteredHours(publicId))
+                .isInstanceOf(RegisterIngestionFailedException.class);
+        verify(ingestionFalhaRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Deve lançar conflito quando a versão do If-Match não é a atual")
+    void shouldThrowConflictWhenVersionIsStale() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        registerHoras.setVersion(2L);
+        when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
+        when(requestMapper.mapRegisterResponse(registerHoras)).thenReturn(registerResponse);
+
+        // When & Then
+        assertThatThrownBy(() -> registerHorasService.updateRegister(uuid, registerRequest, 1L))
+                .isInstanceOf(RegisterVersionConflictException.class)
+                .satisfies(e -> assertThat(((RegisterVersionConflictException) e).getCurrent()).isEqualTo(registerResponse));
+
+        verify(registroHorasRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Deve atualizar quando a versão do If-Match é a atual")
+    void shouldUpdateWhenVersionMatches() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        registerHoras.setVersion(2L);
+        when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
+        when(registroHorasRepository.saveAndFlush(any(RegisterHoras.class))).thenReturn(registerHoras);
+        when(requestMapper.mapRegisterResponse(registerHoras)).thenReturn(registerResponse);
+
+        // When
+        registerHorasService.updateRegister(uuid, registerRequest, 2L);
+
+        // Then
+        verify(registroHorasRepository).saveAndFlush(registerHoras);
+    }
+
+    @Test
+    @DisplayName("PATCH deve executar um único UPDATE sem carregar o registo")
+    void shouldPatchWithSingleUpdate() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        RegisterPatchRequest patch = new RegisterPatchRequest("Nova descrição", null, null);
+        when(registroHorasRepository.patchByPublicId(uuid, "Nova descrição", null, null, "neto", null))
+                .thenReturn(1);
+
+        // When
+        registerHorasService.patchRegister(uuid, patch, "neto", null);
+
+        // Then
+        verify(registroHorasRepository).patchByPublicId(uuid, "Nova descrição", null, null, "neto", null);
+        verify(registroHorasRepository, never()).findByPublicId(any());
+        verify(registroHorasRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("PATCH das datas deve atualizar só as colunas base (minutos são gerados)")
+    void shouldPatchOnlyDatesWhenDatesChange() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        LocalDateTime fim = LocalDateTime.of(2024, 1, 15, 20, 0);
+        RegisterPatchRequest patch = new RegisterPatchRequest(null, null, fim);
+        when(registroHorasRepository.patchByPublicId(uuid, null, null, fim, null, 4L)).thenReturn(1);
+
+        // When
+        registerHorasService.patchRegister(uuid, patch, null, 4L);
+
+        // Then
+        verify(registroHorasRepository).patchByPublicId(uuid, null, null, fim, null, 4L);
+    }
+
+    @Test
+    @DisplayName("PATCH sem linhas atualizadas por versão desatualizada deve lançar conflito")
+    void shouldThrowConflictWhenPatchVersionIsStale() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        registerHoras.setVersion(5L);
+        RegisterPatchRequest patch = new RegisterPatchRequest("Nova descrição", null, null);
+        when(registroHorasRepository.patchByPublicId(any(), any(), any(), any(), any(), any()))
+                .thenReturn(0);
+        when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
+        when(requestMapper.mapRegisterResponse(registerHoras)).thenReturn(registerResponse);
+
+        // When & Then
+        assertThatThrownBy(() -> registerHorasService.patchRegister(uuid, patch, null, 4L))
+                .isInstanceOf(RegisterVersionConflictException.class);
+    }
+
+    @Test
+    @DisplayName("PATCH de registo de outro estagiário deve ser negado")
+    void shouldDenyPatchOfAnotherInternsRegister() {
+        // Given
+        UUID uuid = UUID.randomUUID();
+        RegisterPatchRequest patch = new RegisterPatchRequest("Nova descrição", null, null);
+        when(registroHorasRepository.patchByPublicId(any(), any(), any(), any(), any(), any()))
+                .thenReturn(0);
+        when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
+
+        // When & Then
+        assertThatThrownBy(() -> registerHorasService.patchRegister(uuid, patch, "outro", null))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    @DisplayName("PATCH sem campos deve ser rejeitado")
+    void shouldRejectEmptyPatch() {
+        assertThatThrownBy(() -> registerHorasService.patchRegister(
+                UUID.randomUUID(), new RegisterPatchRequest(null, null, null), null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(registroHorasRepository);
+    }
+
     @Test
     @DisplayName("Deve calcular horas automaticamente quando não fornecidas")
     void shouldCalculateHoursAutomatically() {
@@ -116,7 +364,8 @@ class RegisterHorasServiceTest {
                 0  // Horas não fornecidas
         );
 
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
         when(requestMapper.mapToRegisterHoras(requestSemHoras)).thenReturn(registerHoras);
         when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
         when(requestMapper.mapRegisterResponse(any())).thenReturn(registerResponse);
@@ -201,17 +450,18 @@ class RegisterHorasServiceTest {
         // Given
         UUID uuid = UUID.randomUUID();
         when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
-        when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
+        when(registroHorasRepository.saveAndFlush(any(RegisterHoras.class))).thenReturn(registerHoras);
         when(requestMapper.mapRegisterResponse(registerHoras)).thenReturn(registerResponse);
 
         // When
-        RegisterResponse result = registerHorasService.updateRegister(uuid, registerRequest);
+        RegisterResponse result = registerHorasService.updateRegister(uuid, registerRequest, null);
 
         // Then
         assertThat(result).isNotNull();
         verify(registroHorasRepository).findByPublicId(uuid);
-        verify(registroHorasRepository).save(any(RegisterHoras.class));
+        verify(registroHorasRepository).saveAndFlush(any(RegisterHoras.class));
     }
 
     @Test
@@ -222,12 +472,12 @@ class RegisterHorasServiceTest {
         when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> registerHorasService.updateRegister(uuid, registerRequest))
+        assertThatThrownBy(() -> registerHorasService.updateRegister(uuid, registerRequest, null))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Registro não encontrado");
 
         verify(registroHorasRepository).findByPublicId(uuid);
-        verify(registroHorasRepository, never()).save(any());
+        verify(registroHorasRepository, never()).saveAndFlush(any());
     }
 
     @Test
@@ -235,15 +485,15 @@ class RegisterHorasServiceTest {
     void shouldDeleteRegisterSuccessfully() {
         // Given
        UUID uuid = UUID.randomUUID();
-        when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
-        doNothing().when(registroHorasRepository).delete(registerHoras);
+        when(registroHorasRepository.deleteByPublicId(uuid)).thenReturn(1);
 
         // When
         registerHorasService.DeleteRegisteredHoursUser(uuid);
 
         // Then
-        verify(registroHorasRepository).findByPublicId(uuid);
-        verify(registroHorasRepository).delete(registerHoras);
+        verify(registroHorasRepository).deleteByPublicId(uuid);
+        verify(registroHorasRepository, never()).findByPublicId(any());
+        verify(registroHorasRepository, never()).delete(any());
     }
 
 
@@ -254,15 +504,66 @@ class RegisterHorasServiceTest {
     void shouldThrowExceptionWhenDeletingNonExistentRegister() {
         // Given
       UUID uuid = UUID.randomUUID();
-        when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.empty());
+        when(registroHorasRepository.deleteByPublicId(uuid)).thenReturn(0);
 
         // When & Then
         assertThatThrownBy(() -> registerHorasService.DeleteRegisteredHoursUser(uuid))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Registro não encontrado");
 
-        verify(registroHorasRepository).findByPublicId(uuid);
-        verify(registroHorasRepository, never()).delete(any());
+        verify(registroHorasRepository).deleteByPublicId(uuid);
+    }
+
+    @Test
+    @DisplayName("Bulk delete por lista de UUIDs deve delegar na remoção em batches")
+    void shouldBulkDeleteByPublicIds() {
+        // Given
+        List<UUID> ids = List.of(UUID.randomUUID(), UUID.randomUUID());
+        when(bulkDeleter.deleteByPublicIds(ids)).thenReturn(2L);
+
+        // When
+        BulkDeleteResponse result = registerHorasService.bulkDelete(new BulkDeleteRequest(ids, null, null, null));
+
+        // Then
+        assertThat(result.deleted()).isEqualTo(2L);
+        verify(bulkDeleter, never()).deleteByEstagiarioAndPeriod(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Bulk delete por estagiário e período deve normalizar o estagiário")
+    void shouldBulkDeleteByEstagiarioAndPeriod() {
+        // Given
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime fim = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(bulkDeleter.deleteByEstagiarioAndPeriod("neto", inicio, fim)).thenReturn(30L);
+
+        // When
+        BulkDeleteResponse result = registerHorasService.bulkDelete(new BulkDeleteRequest(null, " Neto ", inicio, fim));
+
+        // Then
+        assertThat(result.deleted()).isEqualTo(30L);
+    }
+
+    @Test
+    @DisplayName("Bulk delete sem critério deve ser rejeitado")
+    void shouldRejectBulkDeleteWithoutCriteria() {
+        assertThatThrownBy(() -> registerHorasService.bulkDelete(new BulkDeleteRequest(List.of(), "neto", null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(bulkDeleter);
+    }
+
+    @Test
+    @DisplayName("Bulk delete com publicIds e período em simultâneo deve ser rejeitado")
+    void shouldRejectBulkDeleteWithIdsAndPeriod() {
+        // Given
+        LocalDateTime inicio = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime fim = LocalDateTime.of(2024, 2, 1, 0, 0);
+        BulkDeleteRequest request = new BulkDeleteRequest(List.of(UUID.randomUUID()), "neto", inicio, fim);
+
+        // When & Then
+        assertThatThrownBy(() -> registerHorasService.bulkDelete(request))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(bulkDeleter);
     }
 
     @Test
@@ -291,31 +592,6 @@ class RegisterHorasServiceTest {
         verify(registroHorasRepository).findByEstagiario("neto", pageable);
     }
 
-    @Test
-    @DisplayName("Deve calcular horas quando horas trabalhadas é zero")
-    void shouldCalculateHoursWhenHoursIsZero() {
-        // Given
-        RegisterRequest requestComZeroHoras = new RegisterRequest(
-
-                "neto",
-                "Desenvolvimento",
-                LocalDateTime.of(2024, 1, 15, 9, 0),
-                LocalDateTime.of(2024, 1, 15, 17, 0),
-                0
-        );
-
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
-        when(requestMapper.mapToRegisterHoras(requestComZeroHoras)).thenReturn(registerHoras);
-        when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
-        when(requestMapper.mapRegisterResponse(any())).thenReturn(registerResponse);
-
-        // When
-        registerHorasService.submitHours(requestComZeroHoras);
-
-        // Then
-        verify(registroHorasRepository).save(argThat(reg -> reg.getHorasTrabalhadas() == 8));
-    }
-
     @Test
     @DisplayName("Deve calcular horas quando horas trabalhadas é negativo")
     void shouldCalculateHoursWhenHoursIsNegative() {
@@ -328,7 +604,8 @@ class RegisterHorasServiceTest {
                 -1
         );
 
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
         when(requestMapper.mapToRegisterHoras(requestComHorasNegativas)).thenReturn(registerHoras);
         when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
         when(requestMapper.mapRegisterResponse(any())).thenReturn(registerResponse);
@@ -337,7 +614,7 @@ class RegisterHorasServiceTest {
         registerHorasService.submitHours(requestComHorasNegativas);
 
         // Then
-        verify(registroHorasRepository).save(argThat(reg -> reg.getHorasTrabalhadas() == 9));
+        verify(registroHorasRepository).save(registerHoras);
     }
 
     @Test
@@ -352,7 +629,8 @@ class RegisterHorasServiceTest {
                 0
         );
 
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
         when(requestMapper.mapToRegisterHoras(requestComDatasInvalidas)).thenReturn(registerHoras);
 
         // When & Then
@@ -364,42 +642,6 @@ class RegisterHorasServiceTest {
     }
 
 
-    @Test
-    @DisplayName("Deve usar horas fornecidas quando maior que zero")
-    void shouldUseProvidedHoursWhenGreaterThanZero() {
-        // Given
-        RegisterRequest requestComHorasFornecidas = new RegisterRequest(
-                "neto",
-                "Desenvolvimento",
-                LocalDateTime.of(2024, 1, 15, 9, 0),
-                LocalDateTime.of(2024, 1, 15, 18, 0),
-                8 // Horas fornecidas
-        );
-
-        // Criar um RegisterHoras com as horas fornecidas do request
-        RegisterHoras registerHorasComOitoHoras = RegisterHoras.builder()
-                .id(1L)
-                .publicId(UUID.randomUUID())
-                .estagiario("neto")
-                .descricao("Desenvolvimento")
-                .dataInicio(LocalDateTime.of(2024, 1, 15, 9, 0))
-                .dataFim(LocalDateTime.of(2024, 1, 15, 18, 0))
-                .horasTrabalhadas(8) // Usar as horas do request
-                .usuario(usuario)
-                .build();
-
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
-        when(requestMapper.mapToRegisterHoras(requestComHorasFornecidas)).thenReturn(registerHorasComOitoHoras);
-        when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHorasComOitoHoras);
-        when(requestMapper.mapRegisterResponse(any())).thenReturn(registerResponse);
-
-        // When
-        registerHorasService.submitHours(requestComHorasFornecidas);
-
-        // Then
-        verify(registroHorasRepository).save(argThat(reg -> reg.getHorasTrabalhadas() == 8));
-    }
-
     @Test
     @DisplayName("Deve atualizar registro alterando o estagiário")
     void shouldUpdateRegisterChangingEstagiario() {
@@ -422,16 +664,17 @@ class RegisterHorasServiceTest {
         );
 
         when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
-        when(usuarioRepository.findByUsername("admin")).thenReturn(Optional.of(novoUsuario));
-        when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
+        when(usuarioRepository.findIdByUsername("admin")).thenReturn(Optional.of(novoUsuario.getId()));
+        when(usuarioRepository.getReferenceById(novoUsuario.getId())).thenReturn(novoUsuario);
+        when(registroHorasRepository.saveAndFlush(any(RegisterHoras.class))).thenReturn(registerHoras);
         when(requestMapper.mapRegisterResponse(any())).thenReturn(registerResponse);
 
         // When
-        registerHorasService.updateRegister(uuid, requestComNovoEstagiario);
+        registerHorasService.updateRegister(uuid, requestComNovoEstagiario, null);
 
         // Then
-        verify(usuarioRepository).findByUsername("admin");
-        verify(registroHorasRepository).save(argThat(reg ->
+        verify(usuarioRepository).findIdByUsername("admin");
+        verify(registroHorasRepository).saveAndFlush(argThat(reg ->
                 reg.getEstagiario().equals("admin") &&
                         reg.getUsuario().equals(novoUsuario)
         ));
@@ -451,15 +694,17 @@ class RegisterHorasServiceTest {
         );
 
         when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
-        when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
+        when(registroHorasRepository.saveAndFlush(any(RegisterHoras.class))).thenReturn(registerHoras);
         when(requestMapper.mapRegisterResponse(any())).thenReturn(registerResponse);
 
         // When
-        registerHorasService.updateRegister(uuid, requestComZeroHoras);
+        registerHorasService.updateRegister(uuid, requestComZeroHoras, null);
 
         // Then
-        verify(registroHorasRepository).save(argThat(reg -> reg.getHorasTrabalhadas() == 5));
+        verify(registroHorasRepository).saveAndFlush(argThat(reg ->
+                reg.getDataFim().equals(LocalDateTime.of(2024, 1, 15, 14, 0))));
     }
 
     @Test
@@ -492,6 +737,28 @@ class RegisterHorasServiceTest {
         verify(registroHorasRepository).findByEstagiario("inexistente");
     }
 
+    @Test
+    @DisplayName("Total de horas deve ser somado em minutos inteiros na base de dados")
+    void shouldSumTotalHoursAsIntegerMinutes() {
+        // Given
+        when(registroHorasRepository.sumMinutosByEstagiario("neto")).thenReturn(150L);
+
+        // When
+        double total = registerHorasService.getTotalHoursForUser("Neto");
+
+        // Then
+        assertThat(total).isEqualTo(2.5);
+        verify(registroHorasRepository, never()).findByEstagiario("neto");
+    }
+
+    @Test
+    @DisplayName("Formatação H.mm deve usar minutos exatos")
+    void shouldFormatMinutesAsHDotMM() {
+        // When & Then
+        assertThat(RegisterHorasServiceImpl.formatMinutosAsHDotMM(150)).isEqualTo("2.30");
+        assertThat(RegisterHorasServiceImpl.formatHorasAsHDotMM(2.999)).isEqualTo("3.00");
+    }
+
     @Test
     @DisplayName("Deve retornar página vazia quando não há registros")
     void shouldReturnEmptyPageWhenNoRegisters() {
@@ -514,8 +781,8 @@ class RegisterHorasServiceTest {
     }
 
     @Test
-    @DisplayName("Deve calcular corretamente horas maiores que 24")
-    void shouldCalculateHoursGreaterThan24Correctly() {
+    @DisplayName("Deve aceitar registos com mais de 24 horas")
+    void shouldAcceptRegistersLongerThan24Hours() {
         // Given
         RegisterRequest requestComMuitasHoras = new RegisterRequest(
                 "neto",
@@ -525,7 +792,8 @@ class RegisterHorasServiceTest {
                 0
         );
 
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
         when(requestMapper.mapToRegisterHoras(requestComMuitasHoras)).thenReturn(registerHoras);
         when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
         when(requestMapper.mapRegisterResponse(any())).thenReturn(registerResponse);
@@ -534,7 +802,7 @@ class RegisterHorasServiceTest {
         registerHorasService.submitHours(requestComMuitasHoras);
 
         // Then
-        verify(registroHorasRepository).save(argThat(reg -> reg.getHorasTrabalhadas() == 27));
+        verify(registroHorasRepository).save(registerHoras);
     }
 
     @Test
@@ -551,42 +819,18 @@ class RegisterHorasServiceTest {
         );
 
         when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
-        when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
+        when(usuarioRepository.findIdByUsername("neto")).thenReturn(Optional.of(usuario.getId()));
+        when(usuarioRepository.getReferenceById(usuario.getId())).thenReturn(usuario);
+        when(registroHorasRepository.saveAndFlush(any(RegisterHoras.class))).thenReturn(registerHoras);
         when(requestMapper.mapRegisterResponse(any())).thenReturn(registerResponse);
 
         // When
-        registerHorasService.updateRegister(uuid, requestMesmoEstagiario);
+        registerHorasService.updateRegister(uuid, requestMesmoEstagiario, null);
 
         // Then
         // Não deve buscar novo usuário pois o estagiário é o mesmo
-        verify(usuarioRepository, never()).findByUsername("neto");
-        verify(registroHorasRepository).save(any(RegisterHoras.class));
-    }
-
-    @Test
-    @DisplayName("Deve atualizar com horas fornecidas sem recalcular")
-    void shouldUpdateWithProvidedHoursWithoutRecalculating() {
-        // Given
-        UUID uuid =  UUID.randomUUID();
-        RegisterRequest requestComHoras = new RegisterRequest(
-                "neto",
-                "Descrição",
-                LocalDateTime.of(2024, 1, 15, 9, 0),
-                LocalDateTime.of(2024, 1, 15, 17, 0),
-                7 // Horas fornecidas (diferente do calculado que seria 8)
-        );
-
-        when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
-        when(usuarioRepository.findByUsername("neto")).thenReturn(Optional.of(usuario));
-        when(registroHorasRepository.save(any(RegisterHoras.class))).thenReturn(registerHoras);
-        when(requestMapper.mapRegisterResponse(any())).thenReturn(registerResponse);
-
-        // When
-        registerHorasService.updateRegister(uuid, requestComHoras);
-
-        // Then
-        verify(registroHorasRepository).save(argThat(reg -> reg.getHorasTrabalhadas() == 7));
+        verify(usuarioRepository, never()).findIdByUsername("neto");
+        verify(registroHorasRepository).saveAndFlush(any(RegisterHoras.class));
     }
 
     @Test
@@ -600,7 +844,7 @@ class RegisterHorasServiceTest {
                 .descricao("Outra tarefa")
                 .dataInicio(LocalDateTime.of(2024, 1, 16, 9, 0))
                 .dataFim(LocalDateTime.of(2024, 1, 16, 17, 0))
-                .horasTrabalhadas(8)
+                .minutosTrabalhados(8 * 60)
                 .usuario(usuario)
                 .build();
 
@@ -610,7 +854,8 @@ class RegisterHorasServiceTest {
                 "Outra tarefa",
                 LocalDateTime.of(2024, 1, 16, 9, 0),
                 LocalDateTime.of(2024, 1, 16, 17, 0),
-                8
+                8,
+                0L
         );
 
         Pageable pageable = PageRequest.of(0, 10);
@@ -648,13 +893,13 @@ class RegisterHorasServiceTest {
         );
 
         when(registroHorasRepository.findByPublicId(uuid)).thenReturn(Optional.of(registerHoras));
-        when(usuarioRepository.findByUsername("inexistente")).thenReturn(Optional.empty());
+        when(usuarioRepository.findIdByUsername("inexistente")).thenReturn(Optional.empty());
 
         // When & Then
-        assertThatThrownBy(() -> registerHorasService.updateRegister(uuid, requestComUsuarioInexistente))
+        assertThatThrownBy(() -> registerHorasService.updateRegister(uuid, requestComUsuarioInexistente, null))
                 .isInstanceOf(RuntimeException.class)
                 .hasMessageContaining("Usuário não encontrado");
 
-        verify(registroHorasRepository, never()).save(any());
+        verify(registroHorasRepository, never()).saveAndFlush(any());
     }
 }
@@ -0,0 +1,54 @@
+package com.registo.horas_estagio.service;
+
+import com.registo.horas_estagio.service.impl.UsuarioIdCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Testes do UsuarioIdCache")
+class UsuarioIdCacheTest {
+
+    @Test
+    @DisplayName("Deve devolver o id guardado e esquecê-lo após evict")
+    void shouldReturnAndEvictId() {
+        // Given
+        UsuarioIdCache cache = new UsuarioIdCache(10);
+        cache.put("neto", 1L);
+
+        // When / Then
+        assertThat(cache.get("neto")).contains(1L);
+        cache.evict("neto");
+        assertThat(cache.get("neto")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Não deve ultrapassar o número máximo de entradas")
+    void shouldRespectMaximumSize() {
+        // Given
+        UsuarioIdCache cache = new UsuarioIdCache(3);
+
+        // When
+        for (long i = 0; i < 50; i++) {
+            cache.put("usuario" + i, i);
+        }
+
+        // Then
+        assertThat(cache.size()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("clear deve esvaziar o cache")
+    void shouldClearAllEntries() {
+        // Given
+        UsuarioIdCache cache = new UsuarioIdCache(10);
+        cache.put("neto", 1L);
+        cache.put("admin", 2L);
+
+        // When
+        cache.clear();
+
+        // Then
+        assertThat(cache.size()).isZero();
+    }
+}
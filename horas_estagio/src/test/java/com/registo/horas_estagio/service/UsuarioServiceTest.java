@@ -2,6 +2,7 @@ package com.registo.horas_estagio.service;
 
 import com.registo.horas_estagio.models.Usuario;
 import com.registo.horas_estagio.repository.UsuarioRepository;
+import com.registo.horas_estagio.service.impl.UsuarioIdCache;
 import com.registo.horas_estagio.service.impl.UsuarioServiceImpl;
 import com.registo.horas_estagio.util.ObjectUtils;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,6 +31,9 @@ class UsuarioServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UsuarioIdCache usuarioIdCache;
+
     @InjectMocks
     private UsuarioServiceImpl usuarioService;
 
@@ -72,6 +76,7 @@ class UsuarioServiceTest {
 
         verify(passwordEncoder).encode(senhaOriginal);
         verify(usuarioRepository).save(any(Usuario.class));
+        verify(usuarioIdCache).evict("maria");
     }
 
     @Test
@@ -33,7 +33,8 @@ public class ObjectUtils {
                 DESCRICAO_PADRAO,
                 DATA_INICIO_PADRAO,
                 DATA_FIM_PADRAO,
-                HORAS_PADRAO
+                HORAS_PADRAO,
+                0L
         );
     }
 
@@ -56,7 +57,7 @@ public class ObjectUtils {
                 .descricao(DESCRICAO_PADRAO)
                 .dataInicio(DATA_INICIO_PADRAO)
                 .dataFim(DATA_FIM_PADRAO)
-                .horasTrabalhadas(HORAS_PADRAO)
+                .minutosTrabalhados(HORAS_PADRAO * 60)
                 .usuario(usuario)
                 .build();
     }